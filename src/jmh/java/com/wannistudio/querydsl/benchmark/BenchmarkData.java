@@ -0,0 +1,53 @@
+package com.wannistudio.querydsl.benchmark;
+
+import com.wannistudio.querydsl.QuerydslApplication;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벤치마크 공통: 웹 없이 애플리케이션 컨텍스트를 띄우고 H2 에 회원 / 팀을 채운다.
+ */
+final class BenchmarkData {
+
+  private BenchmarkData() {
+  }
+
+  static ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(QuerydslApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                    "spring.main.banner-mode=off",
+                    "spring.jpa.properties.hibernate.show_sql=false",
+                    "logging.level.root=warn",
+                    "logging.level.org.hibernate.SQL=warn")
+            .run();
+  }
+
+  /**
+   * rows 명의 회원을 teams 개 팀에 고르게 나눠 넣는다. 나이는 0 ~ 99.
+   */
+  static void load(EntityManager em, int rows, int teams) {
+    em.getTransaction().begin();
+    Team[] created = new Team[teams];
+    for (int t = 0; t < teams; t++) {
+      created[t] = new Team("team" + t);
+      em.persist(created[t]);
+    }
+    for (int i = 0; i < rows; i++) {
+      Member member = new Member("member" + i, i % 100);
+      member.setTeam(em.getReference(Team.class, created[i % teams].getId()));
+      em.persist(member);
+      if (i % 1000 == 0) {
+        em.flush();
+        em.clear();
+      }
+    }
+    em.getTransaction().commit();
+    em.clear();
+  }
+}
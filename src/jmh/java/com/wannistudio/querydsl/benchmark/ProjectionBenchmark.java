@@ -0,0 +1,135 @@
+package com.wannistudio.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberDtoProjection;
+import com.wannistudio.querydsl.dto.QMemberDto;
+import com.wannistudio.querydsl.dto.UserDto;
+import com.wannistudio.querydsl.dto.UserDtoProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * QuerydslBasicTest 의 findDtoBySetter / findDtoByField / findDtoByConstructor / findDtoByQueryProjection
+ * , 생성된 {@code *Projection} 팩토리, Tuple 직접 매핑을 같은 결과 집합에 대해 비교한다. 할당량은 -prof gc 로 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+  @Param({"1000", "10000"})
+  int rows;
+
+  ConfigurableApplicationContext context;
+  EntityManager em;
+  JPAQueryFactory queryFactory;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkData.start();
+    em = context.getBean(EntityManagerFactory.class).createEntityManager();
+    queryFactory = new JPAQueryFactory(em);
+    BenchmarkData.load(em, rows, 1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    em.close();
+    context.close();
+  }
+
+  @Benchmark
+  public List<MemberDto> bean() {
+    return queryFactory
+            .select(Projections.bean(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> fields() {
+    return queryFactory
+            .select(Projections.fields(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> constructor() {
+    return queryFactory
+            .select(Projections.constructor(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> queryProjection() {
+    return queryFactory
+            .select(new QMemberDto(member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> projectionFactory() {
+    return queryFactory
+            .select(new MemberDtoProjection(member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<UserDto> aliasedFields() {
+    return queryFactory
+            .select(Projections.fields(UserDto.class, member.username.as("name"), member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<UserDto> aliasedProjectionFactory() {
+    return queryFactory
+            .select(new UserDtoProjection(member.username, member.age))
+            .from(member)
+            .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> tuple() {
+    List<Tuple> tuples = queryFactory
+            .select(member.username, member.age)
+            .from(member)
+            .fetch();
+    List<MemberDto> result = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      result.add(new MemberDto(tuple.get(member.username), tuple.get(member.age)));
+    }
+    return result;
+  }
+}
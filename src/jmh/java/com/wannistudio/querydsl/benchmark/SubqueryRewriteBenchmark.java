@@ -0,0 +1,138 @@
+package com.wannistudio.querydsl.benchmark;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import com.wannistudio.querydsl.entity.QMember;
+import com.wannistudio.querydsl.repository.MemberWindowQueryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * JPAExpressions 서브쿼리 형태와 {@link MemberWindowQueryRepository} 의 윈도우 함수 / exists 형태를 비교한다.
+ * 양쪽 모두 같은 TransactionTemplate 안에서 공유 EntityManager 로 실행해 트랜잭션 / 프록시 비용을 똑같이 낸다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubqueryRewriteBenchmark {
+
+  @Param({"2000"})
+  int rows;
+
+  @Param({"20"})
+  int teams;
+
+  ConfigurableApplicationContext context;
+  EntityManager em;
+  JPAQueryFactory queryFactory;
+  TransactionTemplate transactionTemplate;
+  MemberWindowQueryRepository windowQueries;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkData.start();
+    em = context.getBean(EntityManagerFactory.class).createEntityManager();
+    BenchmarkData.load(em, rows, teams);
+
+    queryFactory = context.getBean(JPAQueryFactory.class);
+
+    transactionTemplate = context.getBean(TransactionTemplate.class);
+    windowQueries = context.getBean(MemberWindowQueryRepository.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    em.close();
+    context.close();
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> oldestPerTeamBySubquery() {
+    QMember memberSub = new QMember("memberSub");
+    return transactionTemplate.execute(status -> queryFactory
+            .select(projection())
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(member.age.eq(
+                    JPAExpressions
+                            .select(memberSub.age.max())
+                            .from(memberSub)
+                            .where(memberSub.team.eq(member.team))))
+            .fetch());
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> oldestPerTeamByWindow() {
+    return transactionTemplate.execute(status -> windowQueries.findOldestPerTeam());
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> atLeastTeamAverageBySubquery() {
+    QMember memberSub = new QMember("memberSub");
+    return transactionTemplate.execute(status -> queryFactory
+            .select(projection())
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(member.age.goe(
+                    JPAExpressions
+                            .select(memberSub.age.avg())
+                            .from(memberSub)
+                            .where(memberSub.team.eq(member.team))))
+            .fetch());
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> atLeastTeamAverageByWindow() {
+    return transactionTemplate.execute(status -> windowQueries.findAtLeastTeamAverageAge());
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> teamsWithOlderMemberBySubquery() {
+    QMember memberSub = new QMember("memberSub");
+    return transactionTemplate.execute(status -> queryFactory
+            .select(projection())
+            .from(member)
+            .join(member.team, team)
+            .where(member.team.in(
+                    JPAExpressions
+                            .select(memberSub.team)
+                            .from(memberSub)
+                            .where(memberSub.age.gt(98))))
+            .fetch());
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> teamsWithOlderMemberByExists() {
+    return transactionTemplate.execute(status -> windowQueries.findMembersOfTeamsWithMemberOlderThan(98));
+  }
+
+  private QMemberTeamDto projection() {
+    return new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+  }
+}
@@ -1,7 +1,13 @@
 package com.wannistudio.querydsl;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.monitor.MeteredJPAQueryFactory;
+import com.wannistudio.querydsl.monitor.QueryMetrics;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import javax.persistence.EntityManager;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -10,4 +16,8 @@ public class QuerydslApplication {
     SpringApplication.run(QuerydslApplication.class, args);
   }
 
+  @Bean
+  JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+    return new MeteredJPAQueryFactory(em, queryMetrics);
+  }
 }
@@ -0,0 +1,22 @@
+package com.wannistudio.querydsl.apt;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DTO 에 붙이면 {@link ProjectionFactoryProcessor} 가 같은 패키지에 {@code <DTO>Projection} 을 생성한다.
+ * 생성된 클래스는 필드 선언 순서대로 Expression 을 받아 기본 생성자 + setter 를 직접 호출하므로
+ * Projections.bean / fields 와 달리 row 마다 리플렉션을 사용하지 않는다.
+ *
+ * <pre>
+ * new UserDtoProjection(member.username, member.age) // UserDto.name <- member.username
+ * </pre>
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface ProjectionFactory {
+}
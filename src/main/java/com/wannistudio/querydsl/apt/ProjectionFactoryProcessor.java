@@ -0,0 +1,158 @@
+package com.wannistudio.querydsl.apt;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ProjectionFactory} 가 붙은 DTO 마다 FactoryExpression 구현체를 생성한다.
+ *
+ * apt-maven-plugin 에서 JPAAnnotationProcessor 와 함께 실행되며 롬복보다 먼저 돌기 때문에
+ * 생성자와 setter 존재 여부는 여기서 검사하지 않고, 생성된 코드를 컴파일할 때 javac 가 확인한다.
+ */
+@SupportedAnnotationTypes("com.wannistudio.querydsl.apt.ProjectionFactory")
+public class ProjectionFactoryProcessor extends AbstractProcessor {
+
+  private static final String SUFFIX = "Projection";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error(element, "@ProjectionFactory 는 클래스에만 사용할 수 있습니다.");
+          continue;
+        }
+        try {
+          generate((TypeElement) element);
+        } catch (IOException e) {
+          error(element, "Projection 생성 실패: " + e.getMessage());
+        }
+      }
+    }
+    return true;
+  }
+
+  private void generate(TypeElement dto) throws IOException {
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(dto);
+    String packageName = pkg.getQualifiedName().toString();
+    String dtoName = dto.getSimpleName().toString();
+    String className = dtoName + SUFFIX;
+
+    List<VariableElement> fields = new ArrayList<>();
+    for (Element member : dto.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.FIELD && !member.getModifiers().contains(Modifier.STATIC)) {
+        fields.add((VariableElement) member);
+      }
+    }
+
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, dto);
+    try (PrintWriter out = new PrintWriter(file.openWriter())) {
+      if (!packageName.isEmpty()) {
+        out.println("package " + packageName + ";");
+        out.println();
+      }
+      out.println("import com.querydsl.core.types.Expression;");
+      out.println("import com.querydsl.core.types.FactoryExpressionBase;");
+      out.println("import com.querydsl.core.types.Visitor;");
+      out.println("import java.util.Arrays;");
+      out.println("import java.util.Collections;");
+      out.println("import java.util.List;");
+      out.println("import javax.annotation.Generated;");
+      out.println();
+      out.println("/**");
+      out.println(" * " + qualifiedName + " is a reflection-free Querydsl projection for " + dtoName);
+      out.println(" */");
+      out.println("@Generated(\"" + getClass().getName() + "\")");
+      out.println("public class " + className + " extends FactoryExpressionBase<" + dtoName + "> {");
+      out.println();
+      out.println("    private static final long serialVersionUID = " + qualifiedName.hashCode() + "L;");
+      out.println();
+      out.println("    private final List<Expression<?>> args;");
+      out.println();
+
+      StringBuilder params = new StringBuilder();
+      StringBuilder names = new StringBuilder();
+      for (VariableElement field : fields) {
+        if (params.length() > 0) {
+          params.append(", ");
+          names.append(", ");
+        }
+        params.append("Expression<? extends ").append(boxed(field.asType())).append("> ").append(field.getSimpleName());
+        names.append(field.getSimpleName());
+      }
+      out.println("    public " + className + "(" + params + ") {");
+      out.println("        super(" + dtoName + ".class);");
+      out.println("        this.args = Collections.unmodifiableList(Arrays.<Expression<?>>asList(" + names + "));");
+      out.println("    }");
+      out.println();
+      out.println("    @Override");
+      out.println("    public List<Expression<?>> getArgs() {");
+      out.println("        return args;");
+      out.println("    }");
+      out.println();
+      out.println("    @Override");
+      out.println("    public " + dtoName + " newInstance(Object... values) {");
+      out.println("        " + dtoName + " dto = new " + dtoName + "();");
+      for (int i = 0; i < fields.size(); i++) {
+        VariableElement field = fields.get(i);
+        String setter = "set" + capitalize(field.getSimpleName().toString());
+        String cast = "(" + boxed(field.asType()) + ") values[" + i + "]";
+        if (field.asType().getKind().isPrimitive()) {
+          // null 을 primitive 에 넣으면 NPE 이므로 기본값을 유지한다.
+          out.println("        if (values[" + i + "] != null) {");
+          out.println("            dto." + setter + "(" + cast + ");");
+          out.println("        }");
+        } else {
+          out.println("        dto." + setter + "(" + cast + ");");
+        }
+      }
+      out.println("        return dto;");
+      out.println("    }");
+      out.println();
+      out.println("    @Override");
+      out.println("    public <R, C> R accept(Visitor<R, C> v, C context) {");
+      out.println("        return v.visit(this, context);");
+      out.println("    }");
+      out.println();
+      out.println("}");
+    }
+  }
+
+  private String boxed(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+    }
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  private String capitalize(String name) {
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,281 @@
+package com.wannistudio.querydsl.batch;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.wannistudio.querydsl.batch.QScanCheckpoint.scanCheckpoint;
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * 전체 회원을 처리하는 오프라인 작업용 분할 스캔.
+ *
+ * member id 범위를 N 개 구간으로 나누고 구간마다 별도 EntityManager 로 ForkJoinPool 에서 동시에 처리한다.
+ * 구간 안에서는 id 순서로 batchSize 씩 읽어 processor 에 넘기고, 배치 하나가 processor 의 변경과
+ * {@link ScanCheckpoint} 갱신을 한 트랜잭션으로 커밋한다. 실패하면 예외를 던지고, 같은 jobName 으로 다시 실행하면
+ * 마지막으로 커밋된 배치 다음부터 이어서 처리한다(처음 실행 때 나눈 구간을 그대로 쓴다).
+ *
+ * processor 에 넘어온 회원은 해당 배치의 EntityManager 가 관리하므로 수정하면 커밋 시 반영된다.
+ * 구간은 처음 실행할 때의 최대 id 까지이므로 그 이후 추가된 회원은 처리하지 않는다.
+ *
+ * 실행하는 동안 {@link ScanJob} 행의 잠금을 트랜잭션 하나로 잡고 있으므로 커넥션을 구간 수보다 하나 더 쓴다.
+ * 같은 jobName 이 이미 실행 중이면 끝나기를 기다리지 않고 IllegalStateException 을 던진다
+ * (MySQL 은 NOWAIT 로 바로, NOWAIT 가 없는 H2 는 LOCK_TIMEOUT 이 지난 뒤).
+ */
+@Slf4j
+@Component
+public class PartitionedMemberScan {
+
+  private final EntityManagerFactory emf;
+  private final JPAQueryFactory queryFactory;
+  private final int parallelism;
+
+  public PartitionedMemberScan(EntityManagerFactory emf,
+                               JPAQueryFactory queryFactory,
+                               @Value("${querydsl.scan.parallelism:0}") int parallelism) {
+    this.emf = emf;
+    this.queryFactory = queryFactory;
+    this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * partitions 는 처음 실행할 때만 쓰인다. 끝난 뒤 같은 jobName 으로 다시 돌리려면 {@link #reset} 한다.
+   */
+  public ScanProgress scan(String jobName, int partitions, int batchSize, BiConsumer<EntityManager, List<Member>> processor) {
+    return whileLocked(jobName, () -> scanLocked(jobName, partitions, batchSize, processor));
+  }
+
+  private ScanProgress scanLocked(String jobName, int partitions, int batchSize, BiConsumer<EntityManager, List<Member>> processor) {
+    List<ScanCheckpoint> checkpoints = checkpoints(jobName, partitions);
+
+    // 한 구간이 실패해도 나머지 구간은 끝까지 처리하고, 첫 번째 실패를 던진다.
+    List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (ScanCheckpoint checkpoint : checkpoints) {
+      if (!checkpoint.isCompleted()) {
+        tasks.add(() -> {
+          try {
+            scanPartition(checkpoint.getId(), batchSize, processor);
+          } catch (RuntimeException e) {
+            log.warn("scan {} partition {} failed", jobName, checkpoint.getPartitionNo(), e);
+            failures.add(e);
+          }
+          return null;
+        });
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, Math.max(tasks.size(), 1)));
+    try {
+      pool.invokeAll(tasks);
+    } finally {
+      pool.shutdown();
+    }
+    if (!failures.isEmpty()) {
+      throw failures.get(0);
+    }
+    return progress(jobName);
+  }
+
+  public ScanProgress progress(String jobName) {
+    List<ScanCheckpoint> checkpoints = inNewEntityManager(em -> queryFactory
+            .selectFrom(scanCheckpoint)
+            .where(scanCheckpoint.jobName.eq(jobName))
+            .clone(em)
+            .fetch());
+    int completed = 0;
+    long processed = 0;
+    for (ScanCheckpoint checkpoint : checkpoints) {
+      completed += checkpoint.isCompleted() ? 1 : 0;
+      processed += checkpoint.getProcessed();
+    }
+    return new ScanProgress(jobName, checkpoints.size(), completed, processed);
+  }
+
+  /**
+   * 진행 상태를 지워 다음 실행이 처음부터 다시 구간을 나누게 한다.
+   */
+  public void reset(String jobName) {
+    whileLocked(jobName, () -> inNewEntityManager(em -> {
+      EntityTransaction tx = em.getTransaction();
+      tx.begin();
+      new JPADeleteClause(em, scanCheckpoint)
+              .where(scanCheckpoint.jobName.eq(jobName))
+              .execute();
+      tx.commit();
+      return null;
+    }));
+  }
+
+  /**
+   * jobName 의 {@link ScanJob} 행을 PESSIMISTIC_WRITE 로 잠근 채 work 를 실행하고, 끝나면 잠금을 푼다.
+   * 잠금을 얻지 못하면(다른 실행이 잡고 있으면) IllegalStateException 을 던진다.
+   */
+  private <T> T whileLocked(String jobName, Supplier<T> work) {
+    createJobIfAbsent(jobName);
+    return inNewEntityManager(em -> {
+      EntityTransaction tx = em.getTransaction();
+      tx.begin();
+      try {
+        ScanJob job;
+        try {
+          job = em.find(ScanJob.class, jobName, LockModeType.PESSIMISTIC_WRITE,
+                  Collections.singletonMap("javax.persistence.lock.timeout", 0));
+        } catch (PersistenceException e) {
+          throw new IllegalStateException("이미 실행 중인 스캔입니다: " + jobName, e);
+        }
+        if (job == null) {
+          throw new IllegalStateException("스캔 작업 행이 없습니다: " + jobName);
+        }
+        return work.get();
+      } finally {
+        rollbackQuietly(tx);
+      }
+    });
+  }
+
+  /**
+   * 잠금 대기 시간이 지나면 커넥션 풀이 그 커넥션을 닫아 버리므로 롤백 실패는 원래 예외를 가리지 않게 삼킨다.
+   */
+  private void rollbackQuietly(EntityTransaction tx) {
+    if (!tx.isActive()) {
+      return;
+    }
+    try {
+      tx.rollback();
+    } catch (PersistenceException e) {
+      log.debug("rollback of scan job lock failed", e);
+    }
+  }
+
+  private void createJobIfAbsent(String jobName) {
+    inNewEntityManager(em -> {
+      EntityTransaction tx = em.getTransaction();
+      tx.begin();
+      try {
+        if (em.find(ScanJob.class, jobName) == null) {
+          em.persist(new ScanJob(jobName));
+        }
+        tx.commit();
+      } catch (PersistenceException e) {
+        // 동시에 처음 실행한 쪽이 먼저 만들었다. 잠금은 whileLocked 에서 다시 다툰다.
+        log.debug("scan job {} already created", jobName, e);
+      } finally {
+        if (tx.isActive()) {
+          tx.rollback();
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * 이전 실행의 구간이 있으면 그대로 쓰고, 없으면 현재 id 범위를 partitions 개로 나눠 저장한다.
+   */
+  private List<ScanCheckpoint> checkpoints(String jobName, int partitions) {
+    return inNewEntityManager(em -> {
+      EntityTransaction tx = em.getTransaction();
+      tx.begin();
+      try {
+        List<ScanCheckpoint> existing = queryFactory
+                .selectFrom(scanCheckpoint)
+                .where(scanCheckpoint.jobName.eq(jobName))
+                .orderBy(scanCheckpoint.partitionNo.asc())
+                .clone(em)
+                .fetch();
+        if (!existing.isEmpty()) {
+          tx.commit();
+          return existing;
+        }
+
+        Tuple range = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .clone(em)
+                .fetchOne();
+        List<ScanCheckpoint> created = new ArrayList<>();
+        Long min = range.get(member.id.min());
+        Long max = range.get(member.id.max());
+        if (min != null) {
+          long span = max - min + 1;
+          int count = (int) Math.min(partitions, span);
+          for (int i = 0; i < count; i++) {
+            long lower = min + span * i / count;
+            long upper = min + span * (i + 1) / count - 1;
+            ScanCheckpoint checkpoint = new ScanCheckpoint(jobName, i, lower, upper);
+            em.persist(checkpoint);
+            created.add(checkpoint);
+          }
+        }
+        tx.commit();
+        return created;
+      } finally {
+        if (tx.isActive()) {
+          tx.rollback();
+        }
+      }
+    });
+  }
+
+  private void scanPartition(String checkpointId, int batchSize, BiConsumer<EntityManager, List<Member>> processor) {
+    inNewEntityManager(em -> {
+      while (true) {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        try {
+          ScanCheckpoint checkpoint = em.find(ScanCheckpoint.class, checkpointId);
+          List<Member> batch = queryFactory
+                  .selectFrom(member)
+                  .where(member.id.gt(checkpoint.getLastId()), member.id.loe(checkpoint.getUpperId()))
+                  .orderBy(member.id.asc())
+                  .limit(batchSize)
+                  .clone(em)
+                  .fetch();
+          if (batch.isEmpty()) {
+            checkpoint.complete();
+            tx.commit();
+            log.debug("scan {} partition {} done: {} members", checkpoint.getJobName(), checkpoint.getPartitionNo(), checkpoint.getProcessed());
+            return null;
+          }
+
+          processor.accept(em, batch);
+          checkpoint.advance(batch.get(batch.size() - 1).getId(), batch.size());
+          tx.commit();
+        } finally {
+          if (tx.isActive()) {
+            tx.rollback();
+          }
+        }
+        em.clear();
+      }
+    });
+  }
+
+  private <T> T inNewEntityManager(Function<EntityManager, T> work) {
+    EntityManager em = emf.createEntityManager();
+    try {
+      return work.apply(em);
+    } finally {
+      em.close();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.wannistudio.querydsl.batch;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 분할 스캔 한 파티션의 진행 상태. 배치마다 처리 결과와 같은 트랜잭션으로 커밋되므로
+ * 중간에 실패해도 lastId 다음부터 다시 시작할 수 있다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ScanCheckpoint {
+
+  @Id
+  private String id;
+
+  private String jobName;
+  private int partitionNo;
+  /** 파티션 범위 [lowerId, upperId] */
+  private long lowerId;
+  private long upperId;
+  /** 마지막으로 처리한 id. 시작 전에는 lowerId - 1 */
+  private long lastId;
+  private long processed;
+  private boolean completed;
+
+  ScanCheckpoint(String jobName, int partitionNo, long lowerId, long upperId) {
+    this.id = jobName + ":" + partitionNo;
+    this.jobName = jobName;
+    this.partitionNo = partitionNo;
+    this.lowerId = lowerId;
+    this.upperId = upperId;
+    this.lastId = lowerId - 1;
+  }
+
+  void advance(long lastId, int count) {
+    this.lastId = lastId;
+    this.processed += count;
+  }
+
+  void complete() {
+    this.completed = true;
+  }
+}
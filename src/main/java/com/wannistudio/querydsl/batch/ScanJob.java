@@ -0,0 +1,25 @@
+package com.wannistudio.querydsl.batch;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 분할 스캔 작업 하나를 나타내는 행. 실행 중에는 이 행에 비관적 쓰기 잠금을 걸어
+ * 같은 jobName 의 scan / reset 이 동시에 돌지 않게 한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ScanJob {
+
+  @Id
+  private String jobName;
+
+  ScanJob(String jobName) {
+    this.jobName = jobName;
+  }
+}
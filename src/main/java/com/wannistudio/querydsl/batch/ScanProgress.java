@@ -0,0 +1,16 @@
+package com.wannistudio.querydsl.batch;
+
+import lombok.Data;
+
+@Data
+public class ScanProgress {
+
+  private final String jobName;
+  private final int partitions;
+  private final int completedPartitions;
+  private final long processed;
+
+  public boolean isCompleted() {
+    return partitions > 0 && completedPartitions == partitions;
+  }
+}
@@ -0,0 +1,304 @@
+package com.wannistudio.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * DTO / Tuple 프로젝션 조회 결과를 JPQL(쿼리 형태) + 바인드 값 + limit / offset 을 키로 캐시한다.
+ *
+ * 쿼리가 참조하는 엔티티 타입(from, join, 경로 탐색, 서브쿼리)을 결과와 함께 저장하고, 그중 하나라도
+ * JPA 로 변경되어 트랜잭션이 끝나면 {@link QueryResultCacheListener} 의 버전이 바뀌어 다음 조회에서 버린다.
+ * 버전은 쿼리 실행 전에 읽어 두므로 실행 도중 커밋된 변경도 놓치지 않는다.
+ *
+ * - 변경을 아직 커밋하지 않은 트랜잭션 안에서는 자기 변경이 보이도록 캐시를 거치지 않는다.
+ *   flush 전 변경은 dirty checking(전체 flush 와 같은 비용) 없이는 알 수 없으므로, 읽기 / 쓰기 트랜잭션이
+ *   영속 상태 엔티티를 하나라도 들고 있거나 대기 중인 쓰기가 있으면 캐시를 거치지 않는다.
+ * - JPQL 벌크 update / delete 는 {@link #invalidateAfterCommit} 으로 직접 알려야 한다.
+ * - 엔티티 조회는 영속성 컨텍스트에 묶여야 하므로 받지 않는다. DTO 는 캐시된 인스턴스를 그대로 돌려주므로 수정하지 않는다.
+ * - MySQL 기본 격리 수준(REPEATABLE READ)에서는 먼저 시작한 트랜잭션이 예전 스냅샷을 새 버전으로 저장할 수 있어 TTL 까지 남는다.
+ */
+@Component
+public class QueryResultCache {
+
+  private final EntityManager em;
+  private final EntityManagerFactory emf;
+  private final QueryResultCacheListener listener;
+  private final Cache<Key, Entry> cache;
+
+  public QueryResultCache(EntityManager em,
+                          EntityManagerFactory emf,
+                          QueryResultCacheListener listener,
+                          MeterRegistry registry,
+                          @Value("${querydsl.cache.result.ttl:30s}") Duration ttl,
+                          @Value("${querydsl.cache.result.maximum-size:10000}") long maximumSize) {
+    this.em = em;
+    this.emf = emf;
+    this.listener = listener;
+    this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(registry, cache, "querydsl.result");
+  }
+
+  public <T> List<T> fetch(JPAQuery<T> query) {
+    QueryMetadata metadata = query.getMetadata();
+    Set<Class<?>> entityTypes = EntityTypes.of(metadata);
+    if (bypass(entityTypes)) {
+      return query.fetch();
+    }
+
+    Key key = keyOf(metadata);
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      if (entry.isCurrent(listener)) {
+        return entry.result();
+      }
+      cache.asMap().remove(key, entry);
+    }
+
+    long[] versions = versions(entityTypes);
+    List<T> result = Collections.unmodifiableList(new ArrayList<>(query.fetch()));
+    cache.put(key, new Entry(entityTypes.toArray(new Class<?>[0]), versions, result));
+    return result;
+  }
+
+  /**
+   * 현재 트랜잭션이 끝나면 entityType 에 의존하는 결과를 무효화한다. 트랜잭션 밖이면 바로 무효화한다.
+   */
+  public void invalidateAfterCommit(Class<?> entityType) {
+    EventSource session = currentSession();
+    if (session != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+      listener.written(session, entityType);
+    } else {
+      listener.invalidate(entityType);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private boolean bypass(Set<Class<?>> entityTypes) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return false;
+    }
+    EventSource session = currentSession();
+    if (session == null) {
+      return false;
+    }
+    if (listener.hasPendingWrites(session, entityTypes)) {
+      return true;
+    }
+    // flush 전 변경은 쿼리 실행 시 auto flush 로 반영되므로 DB 로 보낸다. 둘 다 상수 시간이다.
+    return session.getActionQueue().hasAnyQueuedActions()
+            || session.getPersistenceContext().getNumberOfManagedEntities() > 0;
+  }
+
+  private EventSource currentSession() {
+    EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+    return current != null ? current.unwrap(EventSource.class) : null;
+  }
+
+  private Key keyOf(QueryMetadata metadata) {
+    JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+    serializer.serialize(metadata, false, null);
+
+    Map<String, Object> binds = new TreeMap<>(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+    serializer.getConstantToAllLabels().forEach((constant, label) -> binds.put(label,
+            constant instanceof ParamExpression ? metadata.getParams().get(constant) : constant));
+
+    QueryModifiers modifiers = metadata.getModifiers();
+    return new Key(serializer.toString(), new ArrayList<>(binds.values()), modifiers.getLimit(), modifiers.getOffset());
+  }
+
+  private long[] versions(Set<Class<?>> entityTypes) {
+    long[] versions = new long[entityTypes.size()];
+    int i = 0;
+    for (Class<?> entityType : entityTypes) {
+      versions[i++] = listener.version(entityType);
+    }
+    return versions;
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class Key {
+    private final String jpql;
+    private final List<Object> binds;
+    private final Long limit;
+    private final Long offset;
+  }
+
+  private static class Entry {
+    private final Class<?>[] entityTypes;
+    private final long[] versions;
+    private final List<?> result;
+
+    Entry(Class<?>[] entityTypes, long[] versions, List<?> result) {
+      this.entityTypes = entityTypes;
+      this.versions = versions;
+      this.result = result;
+    }
+
+    boolean isCurrent(QueryResultCacheListener listener) {
+      for (int i = 0; i < entityTypes.length; i++) {
+        if (listener.version(entityTypes[i]) != versions[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> List<T> result() {
+      return (List<T>) result;
+    }
+  }
+
+  /**
+   * 쿼리가 참조하는 엔티티 타입을 모은다. member.team.name 처럼 암묵적 조인되는 경로의 중간 엔티티도 포함한다.
+   */
+  private static class EntityTypes implements Visitor<Void, Set<Class<?>>> {
+
+    private static final EntityTypes INSTANCE = new EntityTypes();
+
+    static Set<Class<?>> of(QueryMetadata metadata) {
+      Expression<?> projection = metadata.getProjection();
+      if (projection == null || isEntity(projection.getType())) {
+        throw new IllegalArgumentException("엔티티 조회는 결과 캐시에 넣을 수 없습니다: " + projection);
+      }
+      if (projection instanceof FactoryExpression) {
+        for (Expression<?> arg : ((FactoryExpression<?>) projection).getArgs()) {
+          if (isEntity(arg.getType())) {
+            throw new IllegalArgumentException("엔티티 조회는 결과 캐시에 넣을 수 없습니다: " + arg);
+          }
+        }
+      }
+      Set<Class<?>> types = new LinkedHashSet<>();
+      collect(metadata, types);
+      return types;
+    }
+
+    private static void collect(QueryMetadata metadata, Set<Class<?>> types) {
+      for (JoinExpression join : metadata.getJoins()) {
+        accept(join.getTarget(), types);
+        accept(join.getCondition(), types);
+      }
+      accept(metadata.getWhere(), types);
+      accept(metadata.getHaving(), types);
+      metadata.getGroupBy().forEach(groupBy -> accept(groupBy, types));
+      for (OrderSpecifier<?> orderBy : metadata.getOrderBy()) {
+        accept(orderBy.getTarget(), types);
+      }
+      accept(metadata.getProjection(), types);
+    }
+
+    private static void accept(Expression<?> expression, Set<Class<?>> types) {
+      if (expression != null) {
+        expression.accept(INSTANCE, types);
+      }
+    }
+
+    private static boolean isEntity(Class<?> type) {
+      return type.isAnnotationPresent(Entity.class);
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Class<?>> types) {
+      return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Class<?>> types) {
+      expr.getArgs().forEach(arg -> accept(arg, types));
+      return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Class<?>> types) {
+      expr.getArgs().forEach(arg -> accept(arg, types));
+      return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Class<?>> types) {
+      return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Class<?>> types) {
+      for (Path<?> path = expr; path != null; path = path.getMetadata().getParent()) {
+        if (isEntity(path.getType())) {
+          types.add(path.getType());
+        }
+        if (path instanceof CollectionExpression && isEntity(((CollectionExpression<?, ?>) path).getParameter(0))) {
+          types.add(((CollectionExpression<?, ?>) path).getParameter(0));
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Class<?>> types) {
+      collect(expr.getMetadata(), types);
+      return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Class<?>> types) {
+      for (Object arg : expr.getArgs()) {
+        if (arg instanceof Expression) {
+          accept((Expression<?>) arg, types);
+        }
+      }
+      return null;
+    }
+  }
+}
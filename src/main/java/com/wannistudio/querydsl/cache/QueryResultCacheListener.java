@@ -0,0 +1,78 @@
+package com.wannistudio.querydsl.cache;
+
+import com.wannistudio.querydsl.event.EntityWriteListener;
+import com.wannistudio.querydsl.event.TransactionBuffer;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔티티 insert / update / delete 를 flush 시점에 받아 세션별로 변경된 엔티티 타입을 모아 두고,
+ * 트랜잭션이 끝나면 타입별 버전을 올린다. {@link QueryResultCache} 는 저장할 때의 버전과 비교해 결과를 버린다.
+ *
+ * 커밋 전에는 다른 트랜잭션이 새 값을 볼 수 없으므로 버전은 완료 후에 올린다. 롤백이어도 올리는데,
+ * 그 사이 캐시된 결과가 한 번 더 조회될 뿐 틀린 값이 남지는 않는다.
+ * JPQL 벌크 update / delete 는 이벤트가 발생하지 않으므로 {@link #written} 으로 직접 표시해야 한다.
+ */
+public class QueryResultCacheListener implements EntityWriteListener {
+
+  private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+  private final TransactionBuffer<Set<Class<?>>> pending =
+          new TransactionBuffer<>(HashSet::new, (types, success) -> types.forEach(this::invalidate));
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    written(event.getSession(), event.getPersister().getMappedClass());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    written(event.getSession(), event.getPersister().getMappedClass());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    written(event.getSession(), event.getPersister().getMappedClass());
+  }
+
+  /**
+   * 세션의 트랜잭션이 끝나면 entityType 에 의존하는 캐시 결과를 무효화한다.
+   */
+  public void written(EventSource session, Class<?> entityType) {
+    pending.get(session).add(entityType);
+  }
+
+  /**
+   * 이 세션에서 아직 끝나지 않은 변경이 entityTypes 중 하나에 있는지.
+   */
+  public boolean hasPendingWrites(SessionImplementor session, Collection<Class<?>> entityTypes) {
+    Set<Class<?>> types = pending.peek(session);
+    if (types == null) {
+      return false;
+    }
+    for (Class<?> entityType : entityTypes) {
+      if (types.contains(entityType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void invalidate(Class<?> entityType) {
+    versions.computeIfAbsent(entityType, t -> new AtomicLong()).incrementAndGet();
+  }
+
+  public long version(Class<?> entityType) {
+    AtomicLong version = versions.get(entityType);
+    return version != null ? version.get() : 0;
+  }
+}
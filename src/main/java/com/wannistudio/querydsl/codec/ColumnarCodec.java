@@ -0,0 +1,320 @@
+package com.wannistudio.querydsl.codec;
+
+import com.wannistudio.querydsl.codec.ColumnarSchema.Column;
+import com.wannistudio.querydsl.codec.ColumnarSchema.Kind;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO 목록을 컬럼 단위로 저장하는 바이너리 형식. 행마다 필드 이름을 반복하는 JSON 보다 작고, 리플렉션 없이 getter 로만 읽는다.
+ *
+ * <pre>
+ * "QCOL" version(1)
+ * rows(varint) columns(varint)
+ * 컬럼마다 kind(1바이트) name(varint 길이 + UTF-8)
+ * 컬럼마다 데이터
+ *   INT    : 행마다 zigzag varint
+ *   LONG   : null 비트맵 + null 이 아닌 값마다 앞 값과의 차이(zigzag varint)
+ *   STRING : 0 이면 null 비트맵 + null 이 아닌 값마다 varint 길이 + UTF-8
+ *            1 이면 사전 크기(varint) + 사전 항목 + 행마다 사전 번호(varint, 0 은 null)
+ * </pre>
+ *
+ * 문자열 컬럼은 서로 다른 값이 null 이 아닌 값의 절반 이하일 때(팀 이름처럼 반복될 때) 사전으로 저장한다.
+ *
+ * decode 는 헤더의 행 수나 문자열 길이만 보고 미리 할당하지 않는다. 실제로 읽은 바이트만큼만 키우므로
+ * 작은 본문에 큰 값을 적어도 메모리를 잡지 않고 EOF 로 끝난다.
+ */
+public final class ColumnarCodec {
+
+  private static final byte[] MAGIC = {'Q', 'C', 'O', 'L'};
+  private static final int VERSION = 1;
+  private static final int PLAIN = 0;
+  private static final int DICTIONARY = 1;
+  private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private ColumnarCodec() {
+  }
+
+  public static <T> void encode(ColumnarSchema<T> schema, List<? extends T> rows, OutputStream out) throws IOException {
+    out.write(MAGIC);
+    out.write(VERSION);
+    writeVarint(out, rows.size());
+    List<Column<T>> columns = schema.columns();
+    writeVarint(out, columns.size());
+    for (Column<T> column : columns) {
+      out.write(column.kind.code);
+      writeString(out, column.name);
+    }
+
+    Object[] values = new Object[rows.size()];
+    for (Column<T> column : columns) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = column.getter.apply(rows.get(i));
+      }
+      switch (column.kind) {
+        case INT:
+          for (Object value : values) {
+            writeVarint(out, zigzag((Integer) value));
+          }
+          break;
+        case LONG:
+          writeLongs(out, values);
+          break;
+        case STRING:
+          writeStrings(out, values);
+          break;
+      }
+    }
+  }
+
+  public static <T> List<T> decode(ColumnarSchema<T> schema, InputStream in) throws IOException {
+    for (byte magic : MAGIC) {
+      if (readByte(in) != magic) {
+        throw new IOException("columnar 형식이 아닙니다.");
+      }
+    }
+    int version = readByte(in);
+    if (version != VERSION) {
+      throw new IOException("지원하지 않는 columnar 버전입니다: " + version);
+    }
+    int rows = readLength(in, "행 수");
+    long columnCount = readVarint(in);
+    List<Column<T>> columns = schema.columns();
+    if (columnCount != columns.size()) {
+      throw new IOException(schema.getType().getSimpleName() + " 컬럼 수가 다릅니다: " + columnCount);
+    }
+    for (Column<T> column : columns) {
+      Kind kind = Kind.of(readByte(in));
+      String name = readString(in);
+      if (kind != column.kind || !name.equals(column.name)) {
+        throw new IOException(schema.getType().getSimpleName() + " 컬럼이 다릅니다: " + name + "(" + kind + ")");
+      }
+    }
+
+    List<List<Object>> values = new ArrayList<>(columns.size());
+    for (Column<T> column : columns) {
+      switch (column.kind) {
+        case INT:
+          values.add(readInts(in, rows));
+          break;
+        case LONG:
+          values.add(readLongs(in, rows));
+          break;
+        case STRING:
+          values.add(readStrings(in, rows));
+          break;
+      }
+    }
+
+    List<T> result = new ArrayList<>(rows);
+    for (int r = 0; r < rows; r++) {
+      Object[] row = new Object[columns.size()];
+      for (int c = 0; c < row.length; c++) {
+        row[c] = values.get(c).get(r);
+      }
+      result.add(schema.newInstance(row));
+    }
+    return result;
+  }
+
+  private static List<Object> readInts(InputStream in, int rows) throws IOException {
+    List<Object> values = new ArrayList<>(Math.min(rows, INITIAL_CAPACITY));
+    for (int r = 0; r < rows; r++) {
+      values.add((int) unzigzag(readVarint(in)));
+    }
+    return values;
+  }
+
+  private static void writeLongs(OutputStream out, Object[] values) throws IOException {
+    writeNullBitmap(out, values);
+    long previous = 0;
+    for (Object value : values) {
+      if (value != null) {
+        long current = (Long) value;
+        writeVarint(out, zigzag(current - previous));
+        previous = current;
+      }
+    }
+  }
+
+  private static List<Object> readLongs(InputStream in, int rows) throws IOException {
+    byte[] bitmap = readNullBitmap(in, rows);
+    List<Object> values = new ArrayList<>(Math.min(rows, INITIAL_CAPACITY));
+    long previous = 0;
+    for (int r = 0; r < rows; r++) {
+      if (isPresent(bitmap, r)) {
+        previous += unzigzag(readVarint(in));
+        values.add(previous);
+      } else {
+        values.add(null);
+      }
+    }
+    return values;
+  }
+
+  private static void writeStrings(OutputStream out, Object[] values) throws IOException {
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    int nonNull = 0;
+    for (Object value : values) {
+      if (value != null) {
+        nonNull++;
+        dictionary.putIfAbsent((String) value, dictionary.size() + 1);
+      }
+    }
+
+    if (dictionary.size() * 2 > nonNull) {
+      out.write(PLAIN);
+      writeNullBitmap(out, values);
+      for (Object value : values) {
+        if (value != null) {
+          writeString(out, (String) value);
+        }
+      }
+      return;
+    }
+
+    out.write(DICTIONARY);
+    writeVarint(out, dictionary.size());
+    for (String entry : dictionary.keySet()) {
+      writeString(out, entry);
+    }
+    for (Object value : values) {
+      writeVarint(out, value == null ? 0 : dictionary.get(value));
+    }
+  }
+
+  private static List<Object> readStrings(InputStream in, int rows) throws IOException {
+    int encoding = readByte(in);
+    List<Object> values = new ArrayList<>(Math.min(rows, INITIAL_CAPACITY));
+    if (encoding == PLAIN) {
+      byte[] bitmap = readNullBitmap(in, rows);
+      for (int r = 0; r < rows; r++) {
+        values.add(isPresent(bitmap, r) ? readString(in) : null);
+      }
+      return values;
+    }
+    if (encoding != DICTIONARY) {
+      throw new IOException("알 수 없는 문자열 인코딩입니다: " + encoding);
+    }
+
+    int size = readLength(in, "사전 크기");
+    if (size > rows) {
+      throw new IOException("사전 크기가 행 수보다 큽니다: " + size);
+    }
+    List<String> dictionary = new ArrayList<>(Math.min(size, INITIAL_CAPACITY));
+    for (int i = 0; i < size; i++) {
+      dictionary.add(readString(in));
+    }
+    for (int r = 0; r < rows; r++) {
+      long code = readVarint(in);
+      if (code > size) {
+        throw new IOException("사전 번호가 범위를 벗어났습니다: " + code);
+      }
+      values.add(code == 0 ? null : dictionary.get((int) code - 1));
+    }
+    return values;
+  }
+
+  private static void writeNullBitmap(OutputStream out, Object[] values) throws IOException {
+    for (int from = 0; from < values.length; from += 8) {
+      int bits = 0;
+      for (int i = from; i < Math.min(from + 8, values.length); i++) {
+        if (values[i] != null) {
+          bits |= 1 << (i - from);
+        }
+      }
+      out.write(bits);
+    }
+  }
+
+  private static byte[] readNullBitmap(InputStream in, int rows) throws IOException {
+    return readBytes(in, (int) ((rows + 7L) / 8));
+  }
+
+  private static boolean isPresent(byte[] bitmap, int row) {
+    return (bitmap[row >>> 3] & (1 << (row & 7))) != 0;
+  }
+
+  private static void writeString(OutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(InputStream in) throws IOException {
+    return new String(readBytes(in, readLength(in, "문자열 길이")), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * length 바이트를 읽는다. 버퍼는 실제로 읽은 만큼만 두 배씩 키운다.
+   */
+  private static byte[] readBytes(InputStream in, int length) throws IOException {
+    byte[] bytes = new byte[Math.min(length, INITIAL_CAPACITY)];
+    int read = 0;
+    while (read < length) {
+      if (read == bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+      }
+      int n = in.read(bytes, read, bytes.length - read);
+      if (n < 0) {
+        throw new EOFException();
+      }
+      read += n;
+    }
+    return bytes;
+  }
+
+  private static int readLength(InputStream in, String what) throws IOException {
+    long length = readVarint(in);
+    if (length > MAX_ARRAY) {
+      throw new IOException(what + "가 너무 큽니다: " + length);
+    }
+    return (int) length;
+  }
+
+  private static void writeVarint(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte(in);
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("varint 가 너무 깁니다.");
+  }
+
+  private static int readByte(InputStream in) throws IOException {
+    int b = in.read();
+    if (b < 0) {
+      throw new EOFException();
+    }
+    return b;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
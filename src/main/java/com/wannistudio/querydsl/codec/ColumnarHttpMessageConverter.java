@@ -0,0 +1,82 @@
+package com.wannistudio.querydsl.codec;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accept 가 {@link #MEDIA_TYPE} 인 요청에서만 스키마가 등록된 DTO 의 List 를 {@link ColumnarCodec} 으로 응답한다.
+ * 서비스 간 호출처럼 양쪽이 같은 스키마를 아는 경우를 위한 것이고, 그 밖의 요청은 그대로 JSON 이다.
+ * 이 형식을 요청 본문으로 받는 API 는 없으므로 쓰기 전용이다.
+ */
+public class ColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<?>> {
+
+  public static final MediaType MEDIA_TYPE = new MediaType("application", "x-querydsl-columnar");
+
+  private final Map<Class<?>, ColumnarSchema<?>> schemas = new HashMap<>();
+
+  public ColumnarHttpMessageConverter(List<ColumnarSchema<?>> schemas) {
+    super(MEDIA_TYPE);
+    for (ColumnarSchema<?> schema : schemas) {
+      this.schemas.put(schema.getType(), schema);
+    }
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    // 컨트롤러 반환 타입(List<MemberDto>)으로만 고를 수 있고, 원소 타입이 지워진 값만으로는 고르지 않는다.
+    return schemaOf(type) != null && canWrite(mediaType);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return List.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public List<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("columnar 본문은 요청으로 받지 않습니다.", inputMessage);
+  }
+
+  @Override
+  protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("columnar 본문은 요청으로 받지 않습니다.", inputMessage);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void writeInternal(List<?> rows, Type type, HttpOutputMessage outputMessage) throws IOException {
+    ColumnarCodec.encode((ColumnarSchema<Object>) schemaOf(type), rows, outputMessage.getBody());
+  }
+
+  private ColumnarSchema<?> schemaOf(Type type) {
+    if (!(type instanceof ParameterizedType)) {
+      return null;
+    }
+    ParameterizedType parameterized = (ParameterizedType) type;
+    if (!(parameterized.getRawType() instanceof Class) || !List.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+      return null;
+    }
+    Type element = parameterized.getActualTypeArguments()[0];
+    return element instanceof Class ? schemas.get(element) : null;
+  }
+}
@@ -0,0 +1,107 @@
+package com.wannistudio.querydsl.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * DTO 한 종류를 {@link ColumnarCodec} 으로 주고받기 위한 컬럼 정의. 컬럼 순서대로 값을 꺼내고,
+ * 읽을 때는 같은 순서의 값 배열로 DTO 를 만든다.
+ */
+public final class ColumnarSchema<T> {
+
+  enum Kind {
+    /** not null int */
+    INT(1),
+    /** nullable long. 앞 값과의 차이로 저장하므로 정렬된 id 는 대부분 1바이트다. */
+    LONG(2),
+    /** nullable string. 반복이 많으면 사전으로 저장한다. */
+    STRING(3);
+
+    final int code;
+
+    Kind(int code) {
+      this.code = code;
+    }
+
+    static Kind of(int code) {
+      for (Kind kind : values()) {
+        if (kind.code == code) {
+          return kind;
+        }
+      }
+      throw new IllegalArgumentException("알 수 없는 컬럼 종류입니다: " + code);
+    }
+  }
+
+  static final class Column<T> {
+    final String name;
+    final Kind kind;
+    final Function<T, Object> getter;
+
+    Column(String name, Kind kind, Function<T, Object> getter) {
+      this.name = name;
+      this.kind = kind;
+      this.getter = getter;
+    }
+  }
+
+  private final Class<T> type;
+  private final List<Column<T>> columns;
+  private final Function<Object[], T> factory;
+
+  private ColumnarSchema(Class<T> type, List<Column<T>> columns, Function<Object[], T> factory) {
+    this.type = type;
+    this.columns = Collections.unmodifiableList(columns);
+    this.factory = factory;
+  }
+
+  public static <T> Builder<T> builder(Class<T> type) {
+    return new Builder<>(type);
+  }
+
+  public Class<T> getType() {
+    return type;
+  }
+
+  List<Column<T>> columns() {
+    return columns;
+  }
+
+  T newInstance(Object[] values) {
+    return factory.apply(values);
+  }
+
+  public static final class Builder<T> {
+    private final Class<T> type;
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    private Builder(Class<T> type) {
+      this.type = type;
+    }
+
+    public Builder<T> intColumn(String name, ToIntFunction<T> getter) {
+      columns.add(new Column<>(name, Kind.INT, dto -> getter.applyAsInt(dto)));
+      return this;
+    }
+
+    public Builder<T> longColumn(String name, Function<T, Long> getter) {
+      columns.add(new Column<>(name, Kind.LONG, getter::apply));
+      return this;
+    }
+
+    public Builder<T> stringColumn(String name, Function<T, String> getter) {
+      columns.add(new Column<>(name, Kind.STRING, getter::apply));
+      return this;
+    }
+
+    /**
+     * factory 는 컬럼 순서대로 담긴 값(int 는 Integer, long 은 Long, string 은 String, null 가능)을 받는다.
+     */
+    public ColumnarSchema<T> build(Function<Object[], T> factory) {
+      return new ColumnarSchema<>(type, new ArrayList<>(columns), factory);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.wannistudio.querydsl.codec;
+
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.UserDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * columnar 형식으로 주고받는 DTO 스키마. 컬럼을 바꾸면 받는 쪽 스키마도 같이 바꿔야 한다.
+ */
+public final class DtoSchemas {
+
+  public static final ColumnarSchema<MemberDto> MEMBER = ColumnarSchema.builder(MemberDto.class)
+          .stringColumn("username", MemberDto::getUsername)
+          .intColumn("age", MemberDto::getAge)
+          .build(values -> new MemberDto((String) values[0], (Integer) values[1]));
+
+  public static final ColumnarSchema<UserDto> USER = ColumnarSchema.builder(UserDto.class)
+          .stringColumn("name", UserDto::getName)
+          .intColumn("age", UserDto::getAge)
+          .build(values -> new UserDto((String) values[0], (Integer) values[1]));
+
+  public static final ColumnarSchema<MemberTeamDto> MEMBER_TEAM = ColumnarSchema.builder(MemberTeamDto.class)
+          .longColumn("memberId", MemberTeamDto::getMemberId)
+          .stringColumn("username", MemberTeamDto::getUsername)
+          .intColumn("age", MemberTeamDto::getAge)
+          .longColumn("teamId", MemberTeamDto::getTeamId)
+          .stringColumn("teamName", MemberTeamDto::getTeamName)
+          .build(values -> new MemberTeamDto((Long) values[0], (String) values[1], (Integer) values[2],
+                  (Long) values[3], (String) values[4]));
+
+  private DtoSchemas() {
+  }
+
+  public static List<ColumnarSchema<?>> all() {
+    return Arrays.asList(MEMBER, USER, MEMBER_TEAM);
+  }
+}
@@ -0,0 +1,37 @@
+package com.wannistudio.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * querydsl.datasource.replica.url 이 설정되면 spring.datasource 를 원본(쓰기), replica 를 복제본(읽기) 풀로 만들고
+ * 트랜잭션의 readOnly 여부로 둘 중 하나를 고르는 DataSource 를 JPA 에 넘긴다.
+ * 설정하지 않으면 스프링 부트 기본 DataSource 하나만 쓴다.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("querydsl.datasource.replica.url")
+public class DataSourceRoutingConfig {
+
+  public static final String REPLICA_PREFIX = "querydsl.datasource.replica";
+
+  @Bean(destroyMethod = "close")
+  public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties, Environment environment) {
+    DataSourceProperties replicaProperties = Binder.get(environment)
+            .bind(REPLICA_PREFIX, DataSourceProperties.class)
+            .get();
+    return new ReadWriteRoutingDataSource(pool(properties, "primary"), pool(replicaProperties, "replica"));
+  }
+
+  private HikariDataSource pool(DataSourceProperties properties, String name) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+    dataSource.setPoolName(name);
+    return dataSource;
+  }
+}
@@ -0,0 +1,34 @@
+package com.wannistudio.querydsl.config;
+
+import com.wannistudio.querydsl.cache.QueryResultCacheListener;
+import com.wannistudio.querydsl.search.UsernameIndex;
+import com.wannistudio.querydsl.search.UsernameIndexListener;
+import com.wannistudio.querydsl.stats.TeamStatsListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+import static com.wannistudio.querydsl.event.HibernateListeners.appendWriteListener;
+
+/**
+ * 엔티티 변경을 커밋 단위로 받아 읽기 모델(팀 통계, 결과 캐시, username 색인)을 맞추는 리스너들.
+ */
+@Configuration(proxyBeanMethods = false)
+public class EntityWriteListenerConfig {
+
+  @Bean
+  public TeamStatsListener teamStatsListener(EntityManagerFactory emf) {
+    return appendWriteListener(emf, new TeamStatsListener());
+  }
+
+  @Bean
+  public QueryResultCacheListener queryResultCacheListener(EntityManagerFactory emf) {
+    return appendWriteListener(emf, new QueryResultCacheListener());
+  }
+
+  @Bean
+  public UsernameIndexListener usernameIndexListener(EntityManagerFactory emf, UsernameIndex usernameIndex) {
+    return appendWriteListener(emf, new UsernameIndexListener(usernameIndex));
+  }
+}
@@ -0,0 +1,32 @@
+package com.wannistudio.querydsl.config;
+
+import com.wannistudio.querydsl.event.HibernateListeners;
+import com.wannistudio.querydsl.monitor.LazyLoadListener;
+import com.wannistudio.querydsl.monitor.QueryCountInspector;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration(proxyBeanMethods = false)
+public class QueryMonitorConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer queryCountInspectorCustomizer(QueryCounter queryCounter) {
+    return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector(queryCounter));
+  }
+
+  @Bean
+  public LazyLoadListener lazyLoadListener(EntityManagerFactory emf, QueryCounter queryCounter) {
+    LazyLoadListener listener = new LazyLoadListener(queryCounter);
+    EventListenerRegistry registry = HibernateListeners.registry(emf);
+    registry.appendListeners(EventType.LOAD, listener);
+    registry.appendListeners(EventType.INIT_COLLECTION, listener);
+    return listener;
+  }
+}
@@ -0,0 +1,56 @@
+package com.wannistudio.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code @Transactional(readOnly = true)} 트랜잭션은 복제본으로, 나머지는 원본으로 보낸다.
+ *
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않으므로 실제 커넥션은 첫 쿼리 때 고른다.
+ * 두 풀을 별도 DataSource 빈으로 두면 스프링 부트의 DataSource 초기화와 순환 참조가 생기므로 이 빈이 직접 소유한다.
+ */
+@Getter
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+  private enum Target {
+    PRIMARY, REPLICA
+  }
+
+  private final HikariDataSource primary;
+  private final HikariDataSource replica;
+
+  public ReadWriteRoutingDataSource(HikariDataSource primary, HikariDataSource replica) {
+    this.primary = primary;
+    this.replica = replica;
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(Target.PRIMARY, primary);
+    targets.put(Target.REPLICA, replica);
+
+    AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+      @Override
+      protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.REPLICA : Target.PRIMARY;
+      }
+    };
+    routing.setTargetDataSources(targets);
+    routing.setDefaultTargetDataSource(primary);
+    routing.afterPropertiesSet();
+
+    setTargetDataSource(routing);
+    afterPropertiesSet();
+  }
+
+  @Override
+  public void close() {
+    primary.close();
+    replica.close();
+  }
+}
@@ -0,0 +1,82 @@
+package com.wannistudio.querydsl.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * 하이버네이트 2차 캐시를 프로세스 내부 Caffeine(JCache)으로 구성한다.
+ * 리전마다 TTL 과 최대 개수를 application.yml(querydsl.cache.*) 에서 받아 미리 생성해 둔다.
+ *
+ * 리전 적중 / 실패는 하이버네이트 통계(generate_statistics) 없이 JCache 통계로 세고,
+ * 리전마다 cache.gets{cache=리전, result=hit|miss} 등으로 /actuator/metrics 에 내보낸다.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+  public static final String TEAM_REGION = Team.class.getName();
+  public static final String TEAM_MEMBERS_REGION = Team.class.getName() + ".members";
+  public static final String MEMBER_REGION = Member.class.getName();
+
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(
+          @Value("${querydsl.cache.team.ttl:10m}") Duration teamTtl,
+          @Value("${querydsl.cache.team.maximum-size:10000}") long teamMaximumSize,
+          @Value("${querydsl.cache.member.ttl:5m}") Duration memberTtl,
+          @Value("${querydsl.cache.member.maximum-size:100000}") long memberMaximumSize,
+          @Value("${querydsl.cache.query.ttl:1m}") Duration queryTtl,
+          @Value("${querydsl.cache.query.maximum-size:10000}") long queryMaximumSize) {
+    CaffeineCachingProvider provider = (CaffeineCachingProvider) Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    // 같은 URI 의 CacheManager 는 공유되므로 애플리케이션 컨텍스트마다 따로 만든다.
+    CacheManager cacheManager = provider.getCacheManager(
+            URI.create("querydsl-" + UUID.randomUUID()), getClass().getClassLoader());
+
+    cacheManager.createCache(TEAM_REGION, region(teamTtl, teamMaximumSize));
+    cacheManager.createCache(TEAM_MEMBERS_REGION, region(teamTtl, teamMaximumSize));
+    cacheManager.createCache(MEMBER_REGION, region(memberTtl, memberMaximumSize));
+    cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryTtl, queryMaximumSize));
+    // 쿼리 캐시의 유효성 판단에 쓰이므로 만료시키지 않는다.
+    CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+    timestamps.setStatisticsEnabled(true);
+    cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+    return cacheManager;
+  }
+
+  @Bean
+  public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+    return registry -> {
+      for (String name : hibernateCacheManager.getCacheNames()) {
+        JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(name));
+      }
+    };
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+  }
+
+  private CaffeineConfiguration<Object, Object> region(Duration ttl, long maximumSize) {
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+    configuration.setMaximumSize(OptionalLong.of(maximumSize));
+    configuration.setStatisticsEnabled(true);
+    return configuration;
+  }
+}
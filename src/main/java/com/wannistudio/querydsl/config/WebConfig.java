@@ -0,0 +1,19 @@
+package com.wannistudio.querydsl.config;
+
+import com.wannistudio.querydsl.codec.ColumnarHttpMessageConverter;
+import com.wannistudio.querydsl.codec.DtoSchemas;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration(proxyBeanMethods = false)
+public class WebConfig implements WebMvcConfigurer {
+
+  // Jackson 뒤에 두어 Accept 가 없거나 */* 인 요청은 계속 JSON 으로 나간다.
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new ColumnarHttpMessageConverter(DtoSchemas.all()));
+  }
+}
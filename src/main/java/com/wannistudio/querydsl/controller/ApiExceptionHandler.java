@@ -0,0 +1,18 @@
+package com.wannistudio.querydsl.controller;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+  // @Repository 에서 던진 IllegalArgumentException 은 InvalidDataAccessApiUsageException 으로 변환되어 올라온다.
+  @ExceptionHandler({IllegalArgumentException.class, InvalidDataAccessApiUsageException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public String badRequest(RuntimeException e) {
+    return e.getMessage();
+  }
+}
@@ -0,0 +1,164 @@
+package com.wannistudio.querydsl.controller;
+
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.UserDto;
+import com.wannistudio.querydsl.loader.EntityLoaders;
+import com.wannistudio.querydsl.repository.KeysetCursor;
+import com.wannistudio.querydsl.repository.KeysetPage;
+import com.wannistudio.querydsl.repository.MemberCachedQueryRepository;
+import com.wannistudio.querydsl.repository.MemberKeysetRepository;
+import com.wannistudio.querydsl.repository.MemberPagingRepository;
+import com.wannistudio.querydsl.repository.MemberSearchRepository;
+import com.wannistudio.querydsl.repository.MemberSortKey;
+import com.wannistudio.querydsl.repository.MemberUsernameSearchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+public class MemberController {
+
+  private final MemberCachedQueryRepository memberCachedQueryRepository;
+  private final MemberKeysetRepository memberKeysetRepository;
+  private final MemberPagingRepository memberPagingRepository;
+  private final MemberSearchRepository memberSearchRepository;
+  private final MemberUsernameSearchRepository memberUsernameSearchRepository;
+  private final EntityLoaders entityLoaders;
+  private final int maxSearchLimit;
+
+  public MemberController(MemberCachedQueryRepository memberCachedQueryRepository,
+                          MemberKeysetRepository memberKeysetRepository,
+                          MemberPagingRepository memberPagingRepository,
+                          MemberSearchRepository memberSearchRepository,
+                          MemberUsernameSearchRepository memberUsernameSearchRepository,
+                          EntityLoaders entityLoaders,
+                          @Value("${querydsl.search.max-limit:100}") int maxSearchLimit) {
+    this.memberCachedQueryRepository = memberCachedQueryRepository;
+    this.memberKeysetRepository = memberKeysetRepository;
+    this.memberPagingRepository = memberPagingRepository;
+    this.memberSearchRepository = memberSearchRepository;
+    this.memberUsernameSearchRepository = memberUsernameSearchRepository;
+    this.entityLoaders = entityLoaders;
+    this.maxSearchLimit = maxSearchLimit;
+  }
+
+  /**
+   * 조건 검색. 조건이 비어 있으면 전체 회원이 대상이므로 limit 은 1 이상 querydsl.search.max-limit 이하로 제한한다.
+   */
+  @GetMapping("/members/search")
+  public List<MemberTeamDto> searchMembers(MemberSearchCondition condition,
+                                           @RequestParam(defaultValue = "20") int limit) {
+    checkLimit(limit);
+    return memberSearchRepository.search(condition, limit);
+  }
+
+  /**
+   * List 를 돌려주는 회원 조회는 Accept: application/x-querydsl-columnar 로 요청하면 JSON 대신 columnar 바이너리로 받는다.
+   */
+  @GetMapping("/members/by-team")
+  public List<MemberDto> membersByTeam(@RequestParam String teamName) {
+    return memberCachedQueryRepository.findByTeamName(teamName);
+  }
+
+  @GetMapping("/members/users")
+  public List<UserDto> usersByTeam(@RequestParam String teamName) {
+    return memberCachedQueryRepository.findUsersByTeamName(teamName);
+  }
+
+  /**
+   * id 마다 회원과 팀을 따로 찾지만 {@link EntityLoaders} 가 모아서 회원 / 팀 쿼리 한 번씩으로 처리한다.
+   * 없는 id 는 빠지고, 중복 id 는 한 번만 조회해 요청한 순서대로 돌려준다.
+   */
+  @GetMapping("/members/by-ids")
+  public List<MemberTeamDto> membersByIds(@RequestParam List<Long> ids) {
+    List<CompletableFuture<MemberTeamDto>> results = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      results.add(entityLoaders.member().load(id).thenCompose(member -> entityLoaders.teamOf(member)
+              .thenApply(team -> member == null ? null : new MemberTeamDto(
+                      member.getId(), member.getUsername(), member.getAge(),
+                      team != null ? team.getId() : null,
+                      team != null ? team.getName() : null))));
+    }
+    entityLoaders.dispatch();
+
+    List<MemberTeamDto> members = new ArrayList<>(results.size());
+    for (CompletableFuture<MemberTeamDto> result : results) {
+      if (result.join() != null) {
+        members.add(result.join());
+      }
+    }
+    return members;
+  }
+
+  /**
+   * username 검색. match: prefix(접두어, username 순서), contains(부분 문자열, id 순서)
+   * limit 은 1 이상 querydsl.search.max-limit 이하.
+   */
+  @GetMapping("/members/username-search")
+  public List<MemberTeamDto> searchUsername(@RequestParam String q,
+                                            @RequestParam(defaultValue = "prefix") String match,
+                                            @RequestParam(defaultValue = "20") int limit) {
+    checkLimit(limit);
+    switch (match) {
+      case "prefix":
+        return memberUsernameSearchRepository.searchByPrefix(q, limit);
+      case "contains":
+        return memberUsernameSearchRepository.searchContaining(q, limit);
+      default:
+        throw new IllegalArgumentException("지원하지 않는 검색 방식입니다: " + match);
+    }
+  }
+
+  /**
+   * cursor 가 없으면 첫 페이지, 있으면 응답의 nextCursor / previousCursor 로 이어서 조회한다.
+   * 커서에 정렬 키가 들어 있으므로 cursor 를 넘길 때 sort 는 무시된다.
+   */
+  @GetMapping("/members/keyset")
+  public KeysetPage<MemberDto> membersByKeyset(
+          @RequestParam(defaultValue = "USERNAME") MemberSortKey sort,
+          @RequestParam(required = false) String cursor,
+          @RequestParam(defaultValue = "20") int size) {
+    if (cursor == null) {
+      return memberKeysetRepository.findFirstPage(sort, size);
+    }
+    return memberKeysetRepository.findPage(KeysetCursor.decode(cursor), size);
+  }
+
+  /**
+   * count 전략: exact(필요할 때만 count), parallel(count 병렬 실행), approximate(캐시된 count 재사용)
+   */
+  @GetMapping("/members/page")
+  public Page<MemberTeamDto> membersPage(@RequestParam(defaultValue = "exact") String count, Pageable pageable) {
+    switch (count) {
+      case "exact":
+        return memberPagingRepository.searchPage(pageable);
+      case "parallel":
+        return memberPagingRepository.searchPageWithParallelCount(pageable);
+      case "approximate":
+        return memberPagingRepository.searchPageWithApproximateCount(pageable);
+      default:
+        throw new IllegalArgumentException("지원하지 않는 count 전략입니다: " + count);
+    }
+  }
+
+  @GetMapping("/members/slice")
+  public Slice<MemberTeamDto> membersSlice(Pageable pageable) {
+    return memberPagingRepository.searchSlice(pageable);
+  }
+
+  private void checkLimit(int limit) {
+    if (limit < 1 || limit > maxSearchLimit) {
+      throw new IllegalArgumentException("limit 은 1 이상 " + maxSearchLimit + " 이하여야 합니다: " + limit);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.wannistudio.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.repository.MemberExportRepository;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+public class MemberExportController {
+
+  private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+  private static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+  private final MemberExportRepository memberExportRepository;
+  private final ObjectMapper objectMapper;
+
+  public MemberExportController(MemberExportRepository memberExportRepository, ObjectMapper objectMapper) {
+    this.memberExportRepository = memberExportRepository;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * format=csv 는 헤더 + 한 줄에 한 회원, format=json 은 한 줄에 JSON 객체 하나(NDJSON)로 내려준다.
+   * 조회와 쓰기가 동시에 진행되므로 전체 결과를 메모리에 올리지 않는다.
+   */
+  @GetMapping("/members/export")
+  public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format) {
+    boolean csv;
+    if ("csv".equals(format)) {
+      csv = true;
+    } else if ("json".equals(format)) {
+      csv = false;
+    } else {
+      throw new IllegalArgumentException("지원하지 않는 export 형식입니다: " + format);
+    }
+
+    StreamingResponseBody body = out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      if (csv) {
+        writer.write("username,age\n");
+      }
+      try {
+        memberExportRepository.exportMembers(dto -> {
+          try {
+            writer.write(csv ? toCsv(dto) : objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      writer.flush();
+    };
+
+    return ResponseEntity.ok()
+            .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+            .body(body);
+  }
+
+  private String toCsv(MemberDto dto) {
+    return csvField(dto.getUsername()) + "," + dto.getAge();
+  }
+
+  private String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+}
@@ -0,0 +1,105 @@
+package com.wannistudio.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.repository.MemberStreamRepository;
+import com.wannistudio.querydsl.stream.ResultStreamer;
+import com.wannistudio.querydsl.stream.StreamFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 검색 결과를 끝까지 스트리밍한다. Accept 로 형식을 고른다.
+ * - application/x-ndjson : 한 줄에 회원 하나. after 로 이어 받는다.
+ * - text/event-stream    : 이벤트 id 가 회원 id 이므로 재연결 시 Last-Event-ID 다음부터 보낸다. 끝나면 end 이벤트를 보낸다.
+ */
+@RestController
+public class MemberStreamController {
+
+  private static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+  private static final MediaType TEXT_EVENT_STREAM = new MediaType("text", "event-stream", StandardCharsets.UTF_8);
+
+  private final MemberStreamRepository memberStreamRepository;
+  private final ResultStreamer resultStreamer;
+  private final ObjectMapper objectMapper;
+
+  public MemberStreamController(MemberStreamRepository memberStreamRepository,
+                                ResultStreamer resultStreamer,
+                                ObjectMapper objectMapper) {
+    this.memberStreamRepository = memberStreamRepository;
+    this.resultStreamer = resultStreamer;
+    this.objectMapper = objectMapper;
+  }
+
+  @GetMapping(value = "/members/stream", produces = "application/x-ndjson")
+  public void ndjson(MemberSearchCondition condition,
+                     @RequestParam(required = false) Long after,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+    resultStreamer.stream(request, response, APPLICATION_NDJSON,
+            memberStreamRepository.pages(condition, after), new StreamFormat<MemberTeamDto>() {
+              @Override
+              public byte[] page(List<MemberTeamDto> rows) throws IOException {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (MemberTeamDto row : rows) {
+                  out.write(objectMapper.writeValueAsBytes(row));
+                  out.write('\n');
+                }
+                return out.toByteArray();
+              }
+
+              // 중간에 끊긴 것을 정상 종료와 구분할 수 있도록 마지막 줄에 오류를 남긴다.
+              @Override
+              public byte[] error(Throwable e) {
+                return (errorJson(e) + "\n").getBytes(StandardCharsets.UTF_8);
+              }
+            });
+  }
+
+  @GetMapping(value = "/members/stream", produces = "text/event-stream")
+  public void sse(MemberSearchCondition condition,
+                  @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+    resultStreamer.stream(request, response, TEXT_EVENT_STREAM,
+            memberStreamRepository.pages(condition, lastEventId), new StreamFormat<MemberTeamDto>() {
+              @Override
+              public byte[] page(List<MemberTeamDto> rows) throws IOException {
+                StringBuilder events = new StringBuilder();
+                for (MemberTeamDto row : rows) {
+                  events.append("id: ").append(row.getMemberId()).append('\n')
+                          .append("data: ").append(objectMapper.writeValueAsString(row)).append("\n\n");
+                }
+                return events.toString().getBytes(StandardCharsets.UTF_8);
+              }
+
+              @Override
+              public byte[] end() {
+                return "event: end\ndata: \n\n".getBytes(StandardCharsets.UTF_8);
+              }
+
+              @Override
+              public byte[] error(Throwable e) {
+                return ("event: error\ndata: " + errorJson(e) + "\n\n").getBytes(StandardCharsets.UTF_8);
+              }
+            });
+  }
+
+  private String errorJson(Throwable e) {
+    try {
+      return objectMapper.writeValueAsString(Collections.singletonMap("error", String.valueOf(e.getMessage())));
+    } catch (IOException ignored) {
+      return "{\"error\":null}";
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.wannistudio.querydsl.controller;
+
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.TeamMembersDto;
+import com.wannistudio.querydsl.dto.TeamSummaryDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.entity.TeamStats;
+import com.wannistudio.querydsl.repository.TeamPagingRepository;
+import com.wannistudio.querydsl.repository.TeamRepository;
+import com.wannistudio.querydsl.repository.TeamStatsRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+public class TeamController {
+
+  private final TeamRepository teamRepository;
+  private final TeamStatsRepository teamStatsRepository;
+  private final TeamPagingRepository teamPagingRepository;
+
+  public TeamController(TeamRepository teamRepository, TeamStatsRepository teamStatsRepository,
+                        TeamPagingRepository teamPagingRepository) {
+    this.teamRepository = teamRepository;
+    this.teamStatsRepository = teamStatsRepository;
+    this.teamPagingRepository = teamPagingRepository;
+  }
+
+  @GetMapping("/teams/{teamId}/stats")
+  public TeamStats stats(@PathVariable Long teamId) {
+    return teamStatsRepository.findByTeamId(teamId);
+  }
+
+  @GetMapping("/teams/dashboard")
+  public List<TeamMembersDto> dashboard(@PageableDefault(size = 500) Pageable pageable) {
+    List<Team> teams = teamRepository.findPageWithMembers(pageable);
+    List<TeamMembersDto> result = new ArrayList<>(teams.size());
+    for (Team team : teams) {
+      List<MemberDto> members = new ArrayList<>(team.getMembers().size());
+      for (Member member : team.getMembers()) {
+        members.add(new MemberDto(member.getUsername(), member.getAge()));
+      }
+      result.add(new TeamMembersDto(team.getId(), team.getName(), members));
+    }
+    return result;
+  }
+
+  /**
+   * count 전략: exact(필요할 때만 count), parallel(count 병렬 실행), approximate(캐시된 count 재사용)
+   */
+  @GetMapping("/teams/page")
+  public Page<TeamSummaryDto> teamsPage(@RequestParam(defaultValue = "exact") String count, Pageable pageable) {
+    switch (count) {
+      case "exact":
+        return teamPagingRepository.searchPage(pageable);
+      case "parallel":
+        return teamPagingRepository.searchPageWithParallelCount(pageable);
+      case "approximate":
+        return teamPagingRepository.searchPageWithApproximateCount(pageable);
+      default:
+        throw new IllegalArgumentException("지원하지 않는 count 전략입니다: " + count);
+    }
+  }
+
+  @GetMapping("/teams/slice")
+  public Slice<TeamSummaryDto> teamsSlice(Pageable pageable) {
+    return teamPagingRepository.searchSlice(pageable);
+  }
+}
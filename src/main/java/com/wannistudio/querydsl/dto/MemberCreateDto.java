@@ -0,0 +1,19 @@
+package com.wannistudio.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberCreateDto {
+
+  private String username;
+  private int age;
+  private String teamName;
+
+  public MemberCreateDto(String username, int age, String teamName) {
+    this.username = username;
+    this.age = age;
+    this.teamName = teamName;
+  }
+}
@@ -1,10 +1,12 @@
 package com.wannistudio.querydsl.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
+import com.wannistudio.querydsl.apt.ProjectionFactory;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@ProjectionFactory
 @NoArgsConstructor
 public class MemberDto {
 
@@ -0,0 +1,13 @@
+package com.wannistudio.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberSearchCondition {
+  // 회원명, 팀명, 나이(ageGoe, ageLoe)
+
+  private String username;
+  private String teamName;
+  private Integer ageGoe;
+  private Integer ageLoe;
+}
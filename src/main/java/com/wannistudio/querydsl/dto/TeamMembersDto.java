@@ -0,0 +1,19 @@
+package com.wannistudio.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TeamMembersDto {
+
+  private Long teamId;
+  private String name;
+  private List<MemberDto> members;
+
+  public TeamMembersDto(Long teamId, String name, List<MemberDto> members) {
+    this.teamId = teamId;
+    this.name = name;
+    this.members = members;
+  }
+}
@@ -0,0 +1,19 @@
+package com.wannistudio.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamSummaryDto {
+
+  private Long teamId;
+  private String name;
+  private long memberCount;
+
+  @QueryProjection
+  public TeamSummaryDto(Long teamId, String name, long memberCount) {
+    this.teamId = teamId;
+    this.name = name;
+    this.memberCount = memberCount;
+  }
+}
@@ -1,8 +1,10 @@
 package com.wannistudio.querydsl.dto;
 
+import com.wannistudio.querydsl.apt.ProjectionFactory;
 import lombok.Data;
 
 @Data
+@ProjectionFactory
 public class UserDto {
 
   private String name;
@@ -0,0 +1,44 @@
+package com.wannistudio.querydsl.entity;
+
+/**
+ * 나이 구간. {@link Member#getAgeBucket()} 에 저장되어 CASE 식 없이 컬럼으로 조회 / 필터링한다.
+ * 구간을 바꾸면 기존 행의 age_bucket 도 다시 계산해야 한다.
+ */
+public enum AgeBucket {
+  AGE_0_20(0, 20, "0 ~ 20살"),
+  AGE_21_30(21, 30, "21 ~ 30살"),
+  OTHER(null, null, "기타");
+
+  private final Integer min;
+  private final Integer max;
+  private final String label;
+
+  AgeBucket(Integer min, Integer max, String label) {
+    this.min = min;
+    this.max = max;
+    this.label = label;
+  }
+
+  /** 하한(포함). OTHER 는 null */
+  public Integer getMin() {
+    return min;
+  }
+
+  /** 상한(포함). OTHER 는 null */
+  public Integer getMax() {
+    return max;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  public static AgeBucket of(int age) {
+    for (AgeBucket bucket : values()) {
+      if (bucket.min != null && bucket.min <= age && age <= bucket.max) {
+        return bucket;
+      }
+    }
+    return OTHER;
+  }
+}
@@ -4,14 +4,28 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+// 키셋 페이징은 (정렬 값, id) 순서로 읽으므로 정렬 인덱스 끝에 member_id 를 둔다. 이전 페이지(desc, desc)는 MySQL 8 에서는 역방향 스캔, H2 1.4 에서는 인덱스 범위 + 정렬로 읽는다.
+@Table(indexes = {
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"),
+        @Index(name = "idx_member_age_bucket", columnList = "age_bucket"),
+        @Index(name = "idx_member_display_key", columnList = "display_key")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Member {
-  @Id @GeneratedValue
+  // pooled 옵티마이저: 시퀀스 한 번 호출로 id 를 allocationSize 개씩 확보한다.
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+  @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
   @Column(name = "member_id")
   private Long id;
 
@@ -19,6 +33,18 @@ public class Member {
 
   private int age;
 
+  // 자주 쓰는 CASE / CONCAT 결과를 컬럼으로 저장해 인덱스를 걸고 행마다 계산하지 않게 한다.
+  // username / age 를 바꿀 때 함께 갱신되며, JPQL 벌크 update 에서는 직접 같이 set 해야 한다.
+  @Setter(AccessLevel.NONE)
+  @Enumerated(EnumType.STRING)
+  @Column(name = "age_bucket", length = 20)
+  private AgeBucket ageBucket;
+
+  /** username + "_" + age */
+  @Setter(AccessLevel.NONE)
+  @Column(name = "display_key")
+  private String displayKey;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "team_id")
   private Team team;
@@ -34,11 +60,31 @@ public class Member {
   public Member(String username, int age, Team team) {
     this.username = username;
     this.age = age;
+    refreshDerivedColumns();
     if(team != null) {
       changeTeam(team);
     }
   }
 
+  public void setUsername(String username) {
+    this.username = username;
+    refreshDerivedColumns();
+  }
+
+  public void setAge(int age) {
+    this.age = age;
+    refreshDerivedColumns();
+  }
+
+  public static String displayKey(String username, int age) {
+    return username + "_" + age;
+  }
+
+  private void refreshDerivedColumns() {
+    this.ageBucket = AgeBucket.of(age);
+    this.displayKey = displayKey(username, age);
+  }
+
   public void changeTeam(Team team) {
     this.team = team;
     team.getMembers().add(this);
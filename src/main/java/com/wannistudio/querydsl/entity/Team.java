@@ -4,21 +4,30 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Team {
-  @Id @GeneratedValue
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+  @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
   @Column(name = "team_id")
   private Long id;
 
   private String name;
 
+  // 컬렉션 캐시는 회원 id 만 저장하므로 Member 도 캐시해야 회원마다 SELECT 가 나가지 않는다.
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @OneToMany(mappedBy = "team")
   private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,41 @@
+package com.wannistudio.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 수 / 나이 합계 / 최소 / 최대를 미리 계산해 둔 읽기 모델.
+ * 값은 {@link com.wannistudio.querydsl.stats.TeamStatsListener} 가 회원 변경 시 JDBC 로 갱신하므로 JPA 로는 읽기만 한다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamStats {
+
+  @Id
+  @Column(name = "team_id")
+  private Long teamId;
+
+  private long memberCount;
+
+  private long ageSum;
+
+  private Integer ageMin;
+
+  private Integer ageMax;
+
+  public TeamStats(Long teamId) {
+    this.teamId = teamId;
+  }
+
+  public double getAgeAvg() {
+    return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+  }
+}
@@ -0,0 +1,20 @@
+package com.wannistudio.querydsl.event;
+
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * 엔티티 insert / update / delete 를 flush 시점에 받는 리스너. {@link HibernateListeners#appendWriteListener} 로 등록한다.
+ * 커밋 여부에 따라 처리하려면 {@link TransactionBuffer} 에 모아 둔다.
+ */
+public interface EntityWriteListener extends PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  // 하이버네이트 5.4 에서는 철자가 틀린 이 메서드만 추상이라 구현해야 한다.
+  @Override
+  @SuppressWarnings("deprecation")
+  default boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+}
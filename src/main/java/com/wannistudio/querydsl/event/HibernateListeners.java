@@ -0,0 +1,30 @@
+package com.wannistudio.querydsl.event;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.internal.SessionFactoryImpl;
+
+import javax.persistence.EntityManagerFactory;
+
+public final class HibernateListeners {
+
+  private HibernateListeners() {
+  }
+
+  public static EventListenerRegistry registry(EntityManagerFactory emf) {
+    return emf.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+  }
+
+  /**
+   * POST_INSERT / POST_UPDATE / POST_DELETE 에 등록하고 그대로 돌려준다.
+   */
+  public static <T extends EntityWriteListener> T appendWriteListener(EntityManagerFactory emf, T listener) {
+    EventListenerRegistry registry = registry(emf);
+    registry.appendListeners(EventType.POST_INSERT, listener);
+    registry.appendListeners(EventType.POST_UPDATE, listener);
+    registry.appendListeners(EventType.POST_DELETE, listener);
+    return listener;
+  }
+}
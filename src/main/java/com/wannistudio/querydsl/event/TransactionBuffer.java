@@ -0,0 +1,63 @@
+package com.wannistudio.querydsl.event;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 세션의 현재 트랜잭션 동안 변경을 모아 두는 값. 처음 {@link #get} 할 때 만들고, 트랜잭션이 끝나면(커밋 / 롤백 모두)
+ * 지운 뒤 {@link Completion} 에 넘긴다.
+ *
+ * 값이 {@link BeforeTransactionCompletionProcess} 이면 커밋 직전에 같은 커넥션으로 실행되도록 함께 등록한다.
+ * 한 세션은 한 스레드에서만 쓰므로 값 자체는 동기화하지 않아도 된다.
+ */
+public class TransactionBuffer<S> {
+
+  @FunctionalInterface
+  public interface Completion<S> {
+    void completed(S state, boolean success);
+  }
+
+  private final Map<SessionImplementor, S> pending = new ConcurrentHashMap<>();
+  private final Supplier<S> factory;
+  private final Completion<S> completion;
+
+  public TransactionBuffer(Supplier<S> factory, Completion<S> completion) {
+    this.factory = factory;
+    this.completion = completion;
+  }
+
+  public TransactionBuffer(Supplier<S> factory) {
+    this(factory, (state, success) -> {
+    });
+  }
+
+  public S get(EventSource session) {
+    return pending.computeIfAbsent(session, s -> {
+      S state = factory.get();
+      if (state instanceof BeforeTransactionCompletionProcess) {
+        s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) state);
+      }
+      // 롤백되면 before completion 은 호출되지 않으므로 정리는 after completion 에서 한다.
+      s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, ignored) -> {
+        S completed = pending.remove(s);
+        if (completed != null) {
+          completion.completed(completed, success);
+        }
+      });
+      return state;
+    });
+  }
+
+  /**
+   * 이 세션에서 아직 끝나지 않은 트랜잭션의 값. 없으면 null.
+   */
+  public S peek(SessionImplementor session) {
+    return pending.get(session);
+  }
+}
@@ -0,0 +1,118 @@
+package com.wannistudio.querydsl.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 키 하나씩 들어오는 조회를 모아 두었다가 {@link #dispatch()} 때 한 번에 조회하는 DataLoader 방식의 로더.
+ *
+ * - 같은 키는 한 번만 조회하고, 조회한 결과(없으면 null)는 로더가 살아 있는 동안 다시 쓴다.
+ * - 결과를 받아 이어서 load 한 키(회원 -> 팀 같은)도 같은 dispatch 안에서 다음 묶음으로 조회한다.
+ * - 한 묶음은 maxBatchSize 개씩 나눠 in 절이 너무 길어지지 않게 한다.
+ *
+ * 요청 하나에서만 쓰는 것을 전제로 하므로 스레드 안전하지 않다.
+ */
+public class BatchLoader<K, V> {
+
+  private final Function<List<K>, Map<K, V>> batchFunction;
+  private final int maxBatchSize;
+  private final Map<K, CompletableFuture<V>> cache = new HashMap<>();
+  private final Map<K, CompletableFuture<V>> queue = new LinkedHashMap<>();
+
+  /**
+   * batchFunction 은 받은 키 중 찾은 것만 담아 돌려준다.
+   */
+  public BatchLoader(Function<List<K>, Map<K, V>> batchFunction, int maxBatchSize) {
+    this.batchFunction = batchFunction;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public CompletableFuture<V> load(K key) {
+    Objects.requireNonNull(key, "key");
+    return cache.computeIfAbsent(key, k -> {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      queue.put(k, future);
+      return future;
+    });
+  }
+
+  public CompletableFuture<List<V>> loadMany(Collection<K> keys) {
+    List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      futures.add(load(key));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+              List<V> values = new ArrayList<>(futures.size());
+              futures.forEach(future -> values.add(future.join()));
+              return values;
+            });
+  }
+
+  /**
+   * load 한 뒤 바로 결과가 필요할 때.
+   */
+  public V get(K key) {
+    CompletableFuture<V> future = load(key);
+    dispatch();
+    return join(future);
+  }
+
+  public List<V> getAll(Collection<K> keys) {
+    CompletableFuture<List<V>> future = loadMany(keys);
+    dispatch();
+    return join(future);
+  }
+
+  public boolean hasPending() {
+    return !queue.isEmpty();
+  }
+
+  /**
+   * 쌓인 키를 조회해 future 를 완료한다. 완료 콜백에서 새로 load 한 키가 없을 때까지 반복한다.
+   * 조회가 실패하면 해당 묶음의 future 를 예외로 완료하고, 다시 load 할 수 있도록 캐시에서 뺀다.
+   */
+  public void dispatch() {
+    while (!queue.isEmpty()) {
+      List<K> keys = new ArrayList<>(queue.keySet());
+      Map<K, CompletableFuture<V>> futures = new HashMap<>(queue);
+      queue.clear();
+
+      for (int from = 0; from < keys.size(); from += maxBatchSize) {
+        List<K> batch = keys.subList(from, Math.min(from + maxBatchSize, keys.size()));
+        Map<K, V> values;
+        try {
+          values = batchFunction.apply(batch);
+        } catch (RuntimeException e) {
+          for (K key : batch) {
+            cache.remove(key);
+            futures.get(key).completeExceptionally(e);
+          }
+          continue;
+        }
+        for (K key : batch) {
+          futures.get(key).complete(values.get(key));
+        }
+      }
+    }
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.wannistudio.querydsl.loader;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 요청마다 새로 만드는 회원 / 팀 {@link BatchLoader}. id 별 em.find 대신 load 로 모아 두고
+ * {@link #dispatch()} 하면 엔티티 타입마다 in 쿼리 한 번으로 읽는다.
+ * 읽은 엔티티는 요청의 영속성 컨텍스트(open-in-view)에 들어가므로 같은 요청에서 다시 조회해도 같은 인스턴스다.
+ */
+@Component
+@RequestScope
+public class EntityLoaders {
+
+  private final PersistenceUnitUtil persistenceUnitUtil;
+  private final BatchLoader<Long, Member> memberLoader;
+  private final BatchLoader<Long, Team> teamLoader;
+
+  public EntityLoaders(JPAQueryFactory queryFactory,
+                       EntityManagerFactory emf,
+                       @Value("${querydsl.loader.max-batch-size:1000}") int maxBatchSize) {
+    this.persistenceUnitUtil = emf.getPersistenceUnitUtil();
+    this.memberLoader = new BatchLoader<>(ids -> queryFactory
+            .selectFrom(member)
+            .where(member.id.in(ids))
+            .fetch()
+            .stream()
+            .collect(Collectors.toMap(Member::getId, Function.identity())), maxBatchSize);
+    this.teamLoader = new BatchLoader<>(ids -> queryFactory
+            .selectFrom(team)
+            .where(team.id.in(ids))
+            .fetch()
+            .stream()
+            .collect(Collectors.toMap(Team::getId, Function.identity())), maxBatchSize);
+  }
+
+  public BatchLoader<Long, Member> member() {
+    return memberLoader;
+  }
+
+  public BatchLoader<Long, Team> team() {
+    return teamLoader;
+  }
+
+  /**
+   * 회원의 팀. 지연 로딩 프록시를 초기화하지 않고 외래 키만 꺼내 팀 로더에 넣는다.
+   */
+  public CompletableFuture<Team> teamOf(Member member) {
+    if (member == null || member.getTeam() == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return teamLoader.load((Long) persistenceUnitUtil.getIdentifier(member.getTeam()));
+  }
+
+  /**
+   * 회원 -> 팀처럼 이어지는 load 까지 모두 끝날 때까지 로더들을 차례로 dispatch 한다.
+   */
+  public void dispatch() {
+    do {
+      memberLoader.dispatch();
+      teamLoader.dispatch();
+    } while (memberLoader.hasPending() || teamLoader.hasPending());
+  }
+}
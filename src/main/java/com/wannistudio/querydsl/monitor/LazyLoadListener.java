@@ -0,0 +1,31 @@
+package com.wannistudio.querydsl.monitor;
+
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+
+/**
+ * 프록시 초기화(Member.team 등)와 지연 컬렉션 초기화(Team.members 등)를 연관관계별로 센다.
+ * em.find() 는 GET 으로 들어오므로 제외되고, 프록시 초기화만 IMMEDIATE_LOAD 로 들어온다.
+ */
+public class LazyLoadListener implements LoadEventListener, InitializeCollectionEventListener {
+
+  private final QueryCounter counter;
+
+  public LazyLoadListener(QueryCounter counter) {
+    this.counter = counter;
+  }
+
+  @Override
+  public void onLoad(LoadEvent event, LoadType loadType) {
+    if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+      counter.lazyLoaded(event.getEntityClassName());
+    }
+  }
+
+  @Override
+  public void onInitializeCollection(InitializeCollectionEvent event) {
+    counter.lazyLoaded(event.getCollection().getRole());
+  }
+}
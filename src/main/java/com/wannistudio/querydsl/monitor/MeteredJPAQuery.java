@@ -0,0 +1,102 @@
+package com.wannistudio.querydsl.monitor;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * fetch / fetchOne / fetchCount / fetchResults 를 {@link QueryMetrics} 에 기록하는 JPAQuery.
+ * 호출한 리포지토리 메서드는 쿼리를 만들 때 정해지므로 다른 스레드에서 clone 해 실행해도 유지된다.
+ * iterate() 는 결과를 다 읽기 전에 반환되므로 기록하지 않는다.
+ */
+public class MeteredJPAQuery<T> extends JPAQuery<T> {
+
+  private final QueryMetrics metrics;
+  private final String caller;
+  private String jpql;
+  private Map<String, Object> binds = Collections.emptyMap();
+  private boolean recording;
+
+  public MeteredJPAQuery(EntityManager em, QueryMetrics metrics) {
+    super(em);
+    this.metrics = metrics;
+    this.caller = metrics.currentCaller();
+  }
+
+  private MeteredJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                          QueryMetrics metrics, String caller) {
+    super(em, templates, metadata);
+    this.metrics = metrics;
+    this.caller = caller;
+  }
+
+  @Override
+  public List<T> fetch() {
+    return record(super::fetch, List::size);
+  }
+
+  @Override
+  public T fetchOne() throws NonUniqueResultException {
+    return record(super::fetchOne, result -> result != null ? 1 : 0);
+  }
+
+  @Override
+  public long fetchCount() {
+    return record(super::fetchCount, count -> 1);
+  }
+
+  @Override
+  public QueryResults<T> fetchResults() {
+    return record(super::fetchResults, results -> results.getResults().size());
+  }
+
+  @Override
+  protected void logQuery(String queryString, Map<Object, String> parameters) {
+    super.logQuery(queryString, parameters);
+    // fetchResults 는 count 와 목록 두 번 호출되므로 마지막(목록) 쿼리가 남는다.
+    jpql = queryString;
+    binds = new TreeMap<>(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+    parameters.forEach((value, label) -> binds.put(label, value));
+  }
+
+  @Override
+  public MeteredJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+    MeteredJPAQuery<T> q = new MeteredJPAQuery<>(entityManager, templates, getMetadata().clone(), metrics, caller);
+    q.clone(this);
+    return q;
+  }
+
+  @Override
+  public MeteredJPAQuery<T> clone(EntityManager entityManager) {
+    return clone(entityManager, JPAProvider.getTemplates(entityManager));
+  }
+
+  private <R> R record(Supplier<R> execution, ToLongFunction<R> rows) {
+    if (recording) {
+      return execution.get();
+    }
+    recording = true;
+    long statementsBefore = metrics.executedStatements();
+    long start = System.nanoTime();
+    try {
+      R result = execution.get();
+      long elapsed = System.nanoTime() - start;
+      metrics.record(caller, jpql != null ? jpql : toString(), binds, elapsed, rows.applyAsLong(result), metrics.executedStatements() - statementsBefore);
+      return result;
+    } finally {
+      recording = false;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.wannistudio.querydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 모든 select / from 쿼리를 {@link MeteredJPAQuery} 로 만드는 JPAQueryFactory.
+ */
+public class MeteredJPAQueryFactory extends JPAQueryFactory {
+
+  private final EntityManager em;
+  private final QueryMetrics metrics;
+
+  public MeteredJPAQueryFactory(EntityManager em, QueryMetrics metrics) {
+    super(em);
+    this.em = em;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public JPAQuery<?> query() {
+    return new MeteredJPAQuery<Void>(em, metrics);
+  }
+}
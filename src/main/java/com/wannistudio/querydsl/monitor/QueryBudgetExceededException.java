@@ -0,0 +1,17 @@
+package com.wannistudio.querydsl.monitor;
+
+import java.util.List;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+  private final List<String> violations;
+
+  public QueryBudgetExceededException(List<String> violations) {
+    super(String.join(", ", violations));
+    this.violations = violations;
+  }
+
+  public List<String> getViolations() {
+    return violations;
+  }
+}
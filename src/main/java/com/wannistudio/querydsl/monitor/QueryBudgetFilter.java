@@ -0,0 +1,31 @@
+package com.wannistudio.querydsl.monitor;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청마다 {@link QueryScope} 를 열어 요청 단위로 SQL 수와 N+1 을 검사한다.
+ */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+  private final QueryCounter queryCounter;
+
+  public QueryBudgetFilter(QueryCounter queryCounter) {
+    this.queryCounter = queryCounter;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+          throws ServletException, IOException {
+    try (QueryScope ignored = queryCounter.open(request.getMethod() + " " + request.getRequestURI())) {
+      chain.doFilter(request, response);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.wannistudio.querydsl.monitor;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 준비하는 모든 SQL 을 센다. SQL 은 바꾸지 않는다.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+  private final QueryCounter counter;
+
+  public QueryCountInspector(QueryCounter counter) {
+    this.counter = counter;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    counter.statementExecuted(sql);
+    return sql;
+  }
+}
@@ -0,0 +1,90 @@
+package com.wannistudio.querydsl.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 현재 스레드에 열린 {@link QueryScope} 들에 SQL 실행과 지연 로딩을 집계한다.
+ * 스코프는 중첩될 수 있으며 바깥 스코프도 안쪽에서 발생한 것을 함께 센다.
+ *
+ * strict 모드에서는 예산을 넘긴 스코프를 닫을 때 {@link QueryBudgetExceededException} 을 던진다.
+ * 운영에서는 경고 로그만 남기고, 테스트에서 strict 를 켜서 회귀를 잡는 용도다.
+ */
+@Slf4j
+@Component
+public class QueryCounter {
+
+  private final ThreadLocal<Deque<QueryScope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+  private final ThreadLocal<long[]> executed = ThreadLocal.withInitial(() -> new long[1]);
+
+  private final int maxStatements;
+  private final int nPlusOneThreshold;
+  private final boolean strict;
+
+  public QueryCounter(@Value("${querydsl.query-budget.max-statements:30}") int maxStatements,
+                      @Value("${querydsl.query-budget.n-plus-one-threshold:3}") int nPlusOneThreshold,
+                      @Value("${querydsl.query-budget.strict:false}") boolean strict) {
+    this.maxStatements = maxStatements;
+    this.nPlusOneThreshold = nPlusOneThreshold;
+    this.strict = strict;
+  }
+
+  public QueryScope open(String name) {
+    return open(name, false);
+  }
+
+  /**
+   * 실행된 SQL 문자열도 보관하는 스코프. 실행 계획 확인 같은 진단용이다.
+   */
+  public QueryScope openRecording(String name) {
+    return open(name, true);
+  }
+
+  private QueryScope open(String name, boolean recordSql) {
+    QueryScope scope = new QueryScope(name, this, recordSql);
+    scopes.get().push(scope);
+    return scope;
+  }
+
+  /**
+   * 현재 스레드에서 지금까지 실행된 SQL 수. 스코프와 무관하게 세며, 두 시점의 차이로 구간의 SQL 수를 구한다.
+   */
+  public long executedStatements() {
+    return executed.get()[0];
+  }
+
+  void statementExecuted(String sql) {
+    executed.get()[0]++;
+    for (QueryScope scope : scopes.get()) {
+      scope.statementExecuted(sql);
+    }
+  }
+
+  void lazyLoaded(String association) {
+    for (QueryScope scope : scopes.get()) {
+      scope.lazyLoaded(association);
+    }
+  }
+
+  void close(QueryScope scope) {
+    Deque<QueryScope> current = scopes.get();
+    current.remove(scope);
+    if (current.isEmpty()) {
+      scopes.remove();
+    }
+
+    List<String> violations = scope.violations(maxStatements, nPlusOneThreshold);
+    if (violations.isEmpty()) {
+      return;
+    }
+    if (strict) {
+      throw new QueryBudgetExceededException(violations);
+    }
+    violations.forEach(log::warn);
+  }
+}
@@ -0,0 +1,115 @@
+package com.wannistudio.querydsl.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Querydsl 쿼리 실행을 쿼리 형태(JPQL)와 호출한 리포지토리 메서드별로 집계한다.
+ *
+ * - querydsl.query            : 실행 시간 (히스토그램)
+ * - querydsl.query.rows       : 반환 건수
+ * - querydsl.query.statements : 실행 중 나간 SQL 수 (auto flush, 즉시 로딩 포함)
+ *
+ * JPQL 은 태그로 쓰기에 길어서 해시 id 만 태그에 넣고, id 와 JPQL 의 대응은 actuator queryshapes 엔드포인트로 본다.
+ * 느린 쿼리는 sample-rate 비율만큼 바인드 값과 함께 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class QueryMetrics {
+
+  public static final String UNKNOWN_CALLER = "none";
+
+  private final MeterRegistry registry;
+  private final QueryCounter queryCounter;
+  private final long slowQueryThresholdNanos;
+  private final double slowQuerySampleRate;
+
+  private final ThreadLocal<Deque<String>> callers = ThreadLocal.withInitial(ArrayDeque::new);
+  private final Map<String, String> shapes = new ConcurrentHashMap<>();
+
+  public QueryMetrics(MeterRegistry registry,
+                      QueryCounter queryCounter,
+                      @Value("${querydsl.metrics.slow-query-threshold:500ms}") Duration slowQueryThreshold,
+                      @Value("${querydsl.metrics.slow-query-sample-rate:0.1}") double slowQuerySampleRate) {
+    this.registry = registry;
+    this.queryCounter = queryCounter;
+    this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    this.slowQuerySampleRate = slowQuerySampleRate;
+  }
+
+  void enter(String caller) {
+    callers.get().push(caller);
+  }
+
+  void exit() {
+    Deque<String> current = callers.get();
+    current.pop();
+    if (current.isEmpty()) {
+      callers.remove();
+    }
+  }
+
+  /**
+   * 가장 안쪽에서 실행 중인 리포지토리 메서드.
+   */
+  String currentCaller() {
+    String caller = callers.get().peek();
+    return caller != null ? caller : UNKNOWN_CALLER;
+  }
+
+  long executedStatements() {
+    return queryCounter.executedStatements();
+  }
+
+  void record(String caller, String jpql, Map<String, ?> binds, long elapsedNanos, long rows, long statements) {
+    String shape = shapeId(jpql);
+    shapes.putIfAbsent(shape, jpql);
+
+    Timer.builder("querydsl.query")
+            .tag("method", caller)
+            .tag("query", shape)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("querydsl.query.rows")
+            .tag("method", caller)
+            .tag("query", shape)
+            .register(registry)
+            .record(rows);
+    DistributionSummary.builder("querydsl.query.statements")
+            .tag("method", caller)
+            .tag("query", shape)
+            .register(registry)
+            .record(statements);
+
+    if (elapsedNanos >= slowQueryThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+      log.warn("slow query {}ms method={} query={} rows={} statements={} binds={}\n{}",
+              TimeUnit.NANOSECONDS.toMillis(elapsedNanos), caller, shape, rows, statements, binds, jpql);
+    }
+  }
+
+  /**
+   * 지금까지 실행된 쿼리 형태 id 와 JPQL.
+   */
+  public Map<String, String> shapes() {
+    return Collections.unmodifiableMap(new TreeMap<>(shapes));
+  }
+
+  static String shapeId(String jpql) {
+    return String.format("%08x", jpql.hashCode());
+  }
+}
@@ -0,0 +1,84 @@
+package com.wannistudio.querydsl.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청 / 트랜잭션 / 테스트 구간 하나에서 실행된 SQL 수와 지연 로딩 횟수.
+ * {@link QueryCounter#open(String)} 으로 열고 close() 할 때 예산을 검사한다.
+ */
+public class QueryScope implements AutoCloseable {
+
+  private final String name;
+  private final QueryCounter counter;
+  private int statements;
+  private final Map<String, Integer> lazyLoads = new LinkedHashMap<>();
+  private final List<String> sql;
+  private boolean closed;
+
+  QueryScope(String name, QueryCounter counter, boolean recordSql) {
+    this.name = name;
+    this.counter = counter;
+    this.sql = recordSql ? new ArrayList<>() : null;
+  }
+
+  void statementExecuted(String statement) {
+    statements++;
+    if (sql != null) {
+      sql.add(statement);
+    }
+  }
+
+  void lazyLoaded(String association) {
+    lazyLoads.merge(association, 1, Integer::sum);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  /**
+   * {@link QueryCounter#openRecording(String)} 으로 연 스코프에서 실행된 SQL. 그 외에는 빈 목록.
+   */
+  public List<String> getSql() {
+    return sql != null ? Collections.unmodifiableList(sql) : Collections.emptyList();
+  }
+
+  /**
+   * 키는 지연 로딩된 엔티티(예: com...Team) 또는 컬렉션 role(예: com...Team.members).
+   */
+  public Map<String, Integer> getLazyLoads() {
+    return Collections.unmodifiableMap(lazyLoads);
+  }
+
+  /**
+   * 같은 연관관계를 threshold 번 이상 하나씩 지연 로딩했거나 SQL 수가 maxStatements 를 넘은 경우.
+   */
+  public List<String> violations(int maxStatements, int nPlusOneThreshold) {
+    List<String> violations = new ArrayList<>();
+    if (statements > maxStatements) {
+      violations.add(name + ": " + statements + " statements (budget " + maxStatements + ")");
+    }
+    lazyLoads.forEach((association, count) -> {
+      if (count >= nPlusOneThreshold) {
+        violations.add(name + ": N+1 on " + association + " (" + count + " lazy loads)");
+      }
+    });
+    return violations;
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      counter.close(this);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.wannistudio.querydsl.monitor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * querydsl.query 메트릭의 query 태그(형태 id)가 어떤 JPQL 인지 보여준다.
+ */
+@Component
+@Endpoint(id = "queryshapes")
+public class QueryShapesEndpoint {
+
+  private final QueryMetrics metrics;
+
+  public QueryShapesEndpoint(QueryMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @ReadOperation
+  public Map<String, String> shapes() {
+    return metrics.shapes();
+  }
+}
@@ -0,0 +1,30 @@
+package com.wannistudio.querydsl.monitor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code @Repository} 메서드 실행 중에 만든 쿼리에 "클래스.메서드" 를 태그로 붙일 수 있도록 현재 스레드에 기록한다.
+ */
+@Aspect
+@Component
+public class RepositoryMethodAspect {
+
+  private final QueryMetrics metrics;
+
+  public RepositoryMethodAspect(QueryMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Around("@within(org.springframework.stereotype.Repository)")
+  public Object tagCaller(ProceedingJoinPoint joinPoint) throws Throwable {
+    metrics.enter(joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+    try {
+      return joinPoint.proceed();
+    } finally {
+      metrics.exit();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 서로 독립적인 조회를 동시에 실행해 응답 시간을 쿼리 시간의 합이 아니라 가장 느린 쿼리 시간으로 줄인다.
+ *
+ * 작업마다 실행 스레드에서 새 읽기 전용 트랜잭션을 시작하므로 EntityManager 도 작업마다 따로 생긴다.
+ * 공유 EntityManager 를 쓰는 JPAQueryFactory 와 리포지토리를 그대로 호출하면 되고,
+ * 호출한 쪽 트랜잭션의 커밋되지 않은 변경은 보이지 않는다. 반환한 엔티티는 준영속이므로 지연 로딩할 수 없다.
+ *
+ * 런타임이 가상 스레드를 지원하면(JDK 21+) 작업마다 가상 스레드를 쓰고, 아니면 고정 크기 스레드 풀을 쓴다.
+ * 어느 쪽이든 동시에 실행되는 작업 수는 max-concurrency 로 제한하고(커넥션 풀 크기 이하로 둔다),
+ * 실행 중이거나 기다리는 작업은 max-concurrency + queue-capacity 개까지만 받는다.
+ * 가상 스레드 실행기는 대기열이 없으므로 이 상한은 제출할 때 세마포어로 검사한다.
+ */
+@Slf4j
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService executor;
+  private final Semaphore permits;
+  private final Semaphore admissions;
+
+  public AsyncQueryExecutor(JPAQueryFactory queryFactory,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${querydsl.async.max-concurrency:8}") int maxConcurrency,
+                            @Value("${querydsl.async.queue-capacity:1000}") int queueCapacity,
+                            @Value("${querydsl.async.virtual-threads:true}") boolean virtualThreads) {
+    this.queryFactory = queryFactory;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.transactionTemplate.setReadOnly(true);
+    this.permits = new Semaphore(maxConcurrency);
+    this.admissions = new Semaphore(maxConcurrency + queueCapacity);
+
+    ExecutorService virtual = virtualThreads ? virtualThreadExecutor() : null;
+    if (virtual != null) {
+      this.executor = virtual;
+      log.info("async queries run on virtual threads (max concurrency {})", maxConcurrency);
+    } else {
+      this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("querydsl-async-"));
+    }
+  }
+
+  /**
+   * query 를 별도 스레드, 별도 읽기 전용 트랜잭션에서 실행한다.
+   * 실행 중이거나 기다리는 작업이 이미 max-concurrency + queue-capacity 개이면 실행하지 않고
+   * RejectedExecutionException 으로 실패한 future 를 반환한다.
+   */
+  public <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> query) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    if (!admissions.tryAcquire()) {
+      future.completeExceptionally(new RejectedExecutionException("비동기 조회 대기열이 가득 찼습니다."));
+      return future;
+    }
+    try {
+      // future 를 완료하기 전에 자리를 돌려줘야 완료를 본 호출자가 바로 다시 제출할 수 있다.
+      executor.execute(() -> {
+        try {
+          T result = run(query);
+          admissions.release();
+          future.complete(result);
+        } catch (Throwable e) {
+          if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+          }
+          admissions.release();
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      admissions.release();
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private <T> T run(Function<JPAQueryFactory, T> query) throws InterruptedException {
+    permits.acquire();
+    try {
+      return transactionTemplate.execute(status -> query.apply(queryFactory));
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * 모든 future 가 끝날 때까지 기다린다. 하나라도 실패하면 그 원인을 던진다.
+   */
+  public static void awaitAll(CompletableFuture<?>... futures) {
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  private static ExecutorService virtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
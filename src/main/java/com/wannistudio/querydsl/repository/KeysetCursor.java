@@ -0,0 +1,57 @@
+package com.wannistudio.querydsl.repository;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 클라이언트에게는 불투명한 문자열로만 노출되는 키셋 커서.
+ * 정렬 키, 방향, 마지막 행의 정렬 값과 id 를 담는다.
+ */
+@Getter
+public class KeysetCursor {
+
+  public enum Direction { NEXT, PREV }
+
+  private static final String SEPARATOR = ":";
+
+  private final MemberSortKey sortKey;
+  private final Direction direction;
+  private final long id;
+  private final String value;
+
+  public KeysetCursor(MemberSortKey sortKey, Direction direction, long id, String value) {
+    this.sortKey = sortKey;
+    this.direction = direction;
+    this.id = id;
+    this.value = value;
+  }
+
+  public String encode() {
+    // value 는 ':' 를 포함할 수 있으므로 항상 마지막에 둔다.
+    String raw = sortKey.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static KeysetCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = raw.split(SEPARATOR, 4);
+      if (parts.length != 4) {
+        throw invalid(token, null);
+      }
+      return new KeysetCursor(
+              MemberSortKey.valueOf(parts[0]),
+              Direction.valueOf(parts[1]),
+              Long.parseLong(parts[2]),
+              parts[3]);
+    } catch (IllegalArgumentException e) {
+      throw invalid(token, e);
+    }
+  }
+
+  private static IllegalArgumentException invalid(String token, Throwable cause) {
+    return new IllegalArgumentException("잘못된 커서입니다: " + token, cause);
+  }
+}
@@ -0,0 +1,27 @@
+package com.wannistudio.querydsl.repository;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class KeysetPage<T> {
+
+  private final List<T> content;
+  private final String nextCursor;
+  private final String previousCursor;
+
+  public KeysetPage(List<T> content, String nextCursor, String previousCursor) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+    this.previousCursor = previousCursor;
+  }
+
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+
+  public boolean hasPrevious() {
+    return previousCursor != null;
+  }
+}
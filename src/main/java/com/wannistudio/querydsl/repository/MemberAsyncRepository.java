@@ -0,0 +1,45 @@
+package com.wannistudio.querydsl.repository;
+
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.entity.TeamStats;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * 화면 하나에서 함께 쓰는 독립적인 조회를 {@link AsyncQueryExecutor} 로 동시에 실행하는 비동기 버전.
+ */
+@Repository
+public class MemberAsyncRepository {
+
+  private final AsyncQueryExecutor asyncQueryExecutor;
+  private final MemberPagingRepository memberPagingRepository;
+  private final TeamStatsRepository teamStatsRepository;
+
+  public MemberAsyncRepository(AsyncQueryExecutor asyncQueryExecutor,
+                               MemberPagingRepository memberPagingRepository,
+                               TeamStatsRepository teamStatsRepository) {
+    this.asyncQueryExecutor = asyncQueryExecutor;
+    this.memberPagingRepository = memberPagingRepository;
+    this.teamStatsRepository = teamStatsRepository;
+  }
+
+  public CompletableFuture<Page<MemberTeamDto>> searchPage(Pageable pageable) {
+    return asyncQueryExecutor.submit(queryFactory -> memberPagingRepository.searchPage(pageable));
+  }
+
+  public CompletableFuture<TeamStats> teamStats(Long teamId) {
+    return asyncQueryExecutor.submit(queryFactory -> teamStatsRepository.findByTeamId(teamId));
+  }
+
+  public CompletableFuture<Long> count() {
+    return asyncQueryExecutor.submit(queryFactory -> queryFactory
+            .select(member.count())
+            .from(member)
+            .fetchOne());
+  }
+}
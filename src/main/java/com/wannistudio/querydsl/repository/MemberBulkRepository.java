@@ -0,0 +1,181 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.EnumExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.cache.QueryResultCache;
+import com.wannistudio.querydsl.entity.AgeBucket;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * 엔티티를 읽지 않고 update / delete 한 문장으로 처리하는 벌크 연산.
+ *
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않고 DB 에 바로 실행되므로, 실행 전에 flush 하고
+ * 실행 후에는 {@link ContextSync} 에 따라 영속성 컨텍스트를 DB 와 맞춘다.
+ * 엔티티 이벤트도 발생하지 않으므로 팀 통계는 {@link TeamStatsRepository} 로 다시 집계하고,
+ * {@link QueryResultCache} 에는 커밋 후 회원 결과를 버리도록 알린다.
+ */
+@Repository
+@Transactional
+public class MemberBulkRepository {
+
+  public enum ContextSync {
+    /** 영속성 컨텍스트 전체를 비운다. 가장 단순하지만 관리 중인 다른 엔티티도 모두 준영속이 된다. */
+    CLEAR,
+    /** 관리 중인 회원 중 조건에 해당하는 것만 refresh(update) 또는 detach(delete) 한다. */
+    EVICT_AFFECTED
+  }
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TeamStatsRepository teamStatsRepository;
+  private final QueryResultCache queryResultCache;
+  private final int batchSize;
+
+  public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory, TeamStatsRepository teamStatsRepository,
+                              QueryResultCache queryResultCache, @Value("${querydsl.batch.size}") int batchSize) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+    this.teamStatsRepository = teamStatsRepository;
+    this.queryResultCache = queryResultCache;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * 팀에 속한 회원의 나이를 delta 만큼 더한다.
+   */
+  public long addAgeByTeam(Long teamId, int delta, ContextSync sync) {
+    BooleanExpression where = member.team.id.eq(teamId);
+    NumberExpression<Integer> newAge = member.age.add(delta);
+    long affected = bulk(where, false, sync, () -> queryFactory
+            .update(member)
+            .set(member.age, newAge)
+            // 엔티티를 거치지 않으므로 나이에서 파생된 컬럼도 같은 문장에서 다시 계산한다.
+            .set(member.ageBucket, ageBucketOf(newAge))
+            .set(member.displayKey, member.username.concat("_").concat(newAge.stringValue()))
+            .where(where)
+            .execute());
+    teamStatsRepository.rebuild(teamId);
+    queryResultCache.invalidateAfterCommit(Member.class);
+    return affected;
+  }
+
+  /**
+   * 나이가 ageGoe 이상 ageLoe 이하인 회원을 삭제한다.
+   */
+  public long deleteByAgeBetween(int ageGoe, int ageLoe, ContextSync sync) {
+    BooleanExpression where = member.age.between(ageGoe, ageLoe);
+    long affected = bulk(where, true, sync, () -> queryFactory
+            .delete(member)
+            .where(where)
+            .execute());
+    // 여러 팀에 걸쳐 삭제되므로 전체를 다시 집계한다.
+    teamStatsRepository.rebuildAll();
+    queryResultCache.invalidateAfterCommit(Member.class);
+    return affected;
+  }
+
+  /**
+   * {@link AgeBucket#of(int)} 와 같은 구간을 CASE 식으로 만든다.
+   */
+  private Expression<AgeBucket> ageBucketOf(NumberExpression<Integer> age) {
+    CaseBuilder.Cases<AgeBucket, EnumExpression<AgeBucket>> cases = null;
+    for (AgeBucket bucket : AgeBucket.values()) {
+      if (bucket.getMin() == null) {
+        continue;
+      }
+      BooleanExpression inBucket = age.between(bucket.getMin(), bucket.getMax());
+      if (cases == null) {
+        cases = new CaseBuilder().when(inBucket).then(bucket);
+      } else {
+        cases = cases.when(inBucket).then(bucket);
+      }
+    }
+    // else 절의 enum 상수는 JPQL 리터럴로 직렬화되어 Hibernate 가 해석하지 못하므로 저장 형태(문자열)로 넣는다.
+    return cases.otherwise(Expressions.enumTemplate(AgeBucket.class, "'" + AgeBucket.OTHER.name() + "'"));
+  }
+
+  private long bulk(Predicate where, boolean delete, ContextSync sync, LongSupplier statement) {
+    em.flush();
+
+    if (sync == ContextSync.CLEAR) {
+      long affected = statement.getAsLong();
+      em.clear();
+      return affected;
+    }
+
+    // 벌크 실행 후에는 조건을 다시 평가할 수 없으므로(삭제되었거나 값이 바뀜) 대상 엔티티를 먼저 찾아 둔다.
+    List<Member> managed = findAffectedManagedMembers(where);
+    long affected = statement.getAsLong();
+    for (Member m : managed) {
+      if (delete) {
+        detachFromTeam(m);
+        em.detach(m);
+      } else {
+        em.refresh(m);
+      }
+    }
+    return affected;
+  }
+
+  private List<Member> findAffectedManagedMembers(Predicate where) {
+    SessionImplementor session = em.unwrap(SessionImplementor.class);
+    Map<Long, Member> managedById = new HashMap<>();
+    for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+      if (entry.getKey() instanceof Member && entry.getValue().getStatus() == Status.MANAGED) {
+        Member m = (Member) entry.getKey();
+        managedById.put(m.getId(), m);
+      }
+    }
+    if (managedById.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // 관리 중인 회원이 많아도 in 절 하나가 batchSize 를 넘지 않게 나눠 조회한다.
+    List<Long> managedIds = new ArrayList<>(managedById.keySet());
+    List<Member> affected = new ArrayList<>();
+    for (int from = 0; from < managedIds.size(); from += batchSize) {
+      List<Long> affectedIds = queryFactory
+              .select(member.id)
+              .from(member)
+              .where(where, member.id.in(managedIds.subList(from, Math.min(from + batchSize, managedIds.size()))))
+              .fetch();
+      for (Long id : affectedIds) {
+        affected.add(managedById.get(id));
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * 이미 초기화된 team.members 에 삭제된 회원이 남아 있지 않도록 한다.
+   */
+  private void detachFromTeam(Member m) {
+    Team team = m.getTeam();
+    if (team != null && Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers())) {
+      team.getMembers().remove(m);
+    }
+  }
+}
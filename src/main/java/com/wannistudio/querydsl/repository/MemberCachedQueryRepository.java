@@ -0,0 +1,69 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.cache.QueryResultCache;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.QMemberDto;
+import com.wannistudio.querydsl.dto.UserDto;
+import com.wannistudio.querydsl.dto.UserDtoProjection;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 파라미터로 반복해서 들어오는 조회를 {@link QueryResultCache} 로 처리한다.
+ * 회원 / 팀이 JPA 로 변경되어 커밋되면 다음 조회는 DB 로 간다.
+ */
+@Repository
+public class MemberCachedQueryRepository {
+
+  private final JPAQueryFactory queryFactory;
+  private final QueryResultCache queryResultCache;
+
+  public MemberCachedQueryRepository(JPAQueryFactory queryFactory, QueryResultCache queryResultCache) {
+    this.queryFactory = queryFactory;
+    this.queryResultCache = queryResultCache;
+  }
+
+  public List<MemberDto> findByTeamName(String teamName) {
+    return queryResultCache.fetch(queryFactory
+            .select(new QMemberDto(member.username, member.age))
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.eq(teamName))
+            .orderBy(member.id.asc()));
+  }
+
+  public List<UserDto> findUsersByTeamName(String teamName) {
+    return queryResultCache.fetch(queryFactory
+            .select(new UserDtoProjection(member.username, member.age))
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.eq(teamName))
+            .orderBy(member.id.asc()));
+  }
+
+  public List<MemberDto> findByUsername(String username) {
+    return queryResultCache.fetch(queryFactory
+            .select(new QMemberDto(member.username, member.age))
+            .from(member)
+            .where(member.username.eq(username))
+            .orderBy(member.id.asc()));
+  }
+
+  /**
+   * 팀별 회원 수. 회원이 없는 팀도 0 으로 나온다.
+   */
+  public List<Tuple> countByTeam() {
+    return queryResultCache.fetch(queryFactory
+            .select(team.name, member.count())
+            .from(team)
+            .leftJoin(team.members, member)
+            .groupBy(team.name)
+            .orderBy(team.name.asc()));
+  }
+}
@@ -0,0 +1,63 @@
+package com.wannistudio.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.QMemberDto;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * fetch() 로 전체 List 를 만들지 않고 한 건씩 흘려보내는 export 용 조회.
+ * 하이버네이트에서 iterate() 는 ScrollableResults(FORWARD_ONLY) 로 동작하므로
+ * 힙에는 fetchSize 만큼의 row 만 올라온다.
+ */
+@Repository
+public class MemberExportRepository {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final int fetchSize;
+  private final int clearInterval;
+
+  public MemberExportRepository(EntityManager em,
+                                JPAQueryFactory queryFactory,
+                                @Value("${querydsl.export.fetch-size:500}") int fetchSize,
+                                @Value("${querydsl.export.clear-interval:1000}") int clearInterval) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+    this.fetchSize = fetchSize;
+    this.clearInterval = clearInterval;
+  }
+
+  /**
+   * 모든 회원을 id 순서로 sink 에 넘기고 넘긴 건수를 반환한다.
+   * sink 에서 지연 로딩 등으로 엔티티가 영속성 컨텍스트에 쌓일 수 있으므로 clearInterval 마다 비운다.
+   */
+  @Transactional(readOnly = true)
+  public long exportMembers(Consumer<MemberDto> sink) {
+    long count = 0;
+    try (CloseableIterator<MemberDto> iterator = queryFactory
+            .select(new QMemberDto(member.username, member.age))
+            .from(member)
+            .orderBy(member.id.asc())
+            .setHint(QueryHints.FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.READ_ONLY, true)
+            .iterate()) {
+      while (iterator.hasNext()) {
+        sink.accept(iterator.next());
+        if (++count % clearInterval == 0) {
+          em.clear();
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,96 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.repository.KeysetCursor.Direction;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * offset 대신 마지막으로 본 행의 (정렬 값, id) 이후를 조회하는 키셋 페이징.
+ * 페이지 깊이와 관계없이 인덱스 탐색 한 번으로 끝나고, count 쿼리도 실행하지 않는다.
+ */
+@Repository
+public class MemberKeysetRepository {
+
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  private final JPAQueryFactory queryFactory;
+
+  public MemberKeysetRepository(JPAQueryFactory queryFactory) {
+    this.queryFactory = queryFactory;
+  }
+
+  /**
+   * 첫 페이지를 조회한다.
+   */
+  public KeysetPage<MemberDto> findFirstPage(MemberSortKey sortKey, int size) {
+    return fetch(sortKey, null, size);
+  }
+
+  /**
+   * 이전 응답에서 받은 커서({@link KeysetCursor#decode})로 다음 또는 이전 페이지를 조회한다.
+   */
+  public KeysetPage<MemberDto> findPage(KeysetCursor cursor, int size) {
+    return fetch(cursor.getSortKey(), cursor, size);
+  }
+
+  private KeysetPage<MemberDto> fetch(MemberSortKey sortKey, KeysetCursor cursor, int size) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("size 는 1 이상 " + MAX_PAGE_SIZE + " 이하여야 합니다: " + size);
+    }
+    boolean backward = cursor != null && cursor.getDirection() == Direction.PREV;
+
+    // 한 건 더 조회해서 다음 페이지 존재 여부를 판단한다.
+    List<Tuple> rows = queryFactory
+            .select(member.id, member.username, member.age)
+            .from(member)
+            .where(sortKey.eligible(), seek(sortKey, cursor))
+            .orderBy(sortKey.order(!backward), backward ? member.id.desc() : member.id.asc())
+            .limit(size + 1)
+            .fetch();
+
+    boolean more = rows.size() > size;
+    if (more) {
+      rows = rows.subList(0, size);
+    }
+    if (backward) {
+      rows = new ArrayList<>(rows);
+      Collections.reverse(rows);
+    }
+    if (rows.isEmpty()) {
+      return new KeysetPage<>(Collections.emptyList(), null, null);
+    }
+
+    List<MemberDto> content = new ArrayList<>(rows.size());
+    for (Tuple row : rows) {
+      content.add(new MemberDto(row.get(member.username), row.get(member.age)));
+    }
+
+    boolean hasNext = backward || more;
+    boolean hasPrevious = backward ? more : cursor != null;
+    String next = hasNext ? cursorOf(sortKey, Direction.NEXT, rows.get(rows.size() - 1)) : null;
+    String previous = hasPrevious ? cursorOf(sortKey, Direction.PREV, rows.get(0)) : null;
+    return new KeysetPage<>(content, next, previous);
+  }
+
+  private BooleanExpression seek(MemberSortKey sortKey, KeysetCursor cursor) {
+    if (cursor == null) {
+      return null;
+    }
+    return cursor.getDirection() == Direction.NEXT
+            ? sortKey.after(cursor.getValue(), cursor.getId())
+            : sortKey.before(cursor.getValue(), cursor.getId());
+  }
+
+  private String cursorOf(MemberSortKey sortKey, Direction direction, Tuple row) {
+    return new KeysetCursor(sortKey, direction, row.get(member.id), sortKey.valueOf(row)).encode();
+  }
+}
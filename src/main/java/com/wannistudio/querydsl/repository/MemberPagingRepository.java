@@ -0,0 +1,68 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 목록 화면용 페이징 조회. count 실행 전략만 다르고 content 쿼리는 모두 같다.
+ */
+@Repository
+public class MemberPagingRepository {
+
+  static final String MEMBER_COUNT_KEY = "member";
+
+  private final JPAQueryFactory queryFactory;
+  private final QuerydslPagingSupport pagingSupport;
+
+  public MemberPagingRepository(JPAQueryFactory queryFactory, QuerydslPagingSupport pagingSupport) {
+    this.queryFactory = queryFactory;
+    this.pagingSupport = pagingSupport;
+  }
+
+  public Page<MemberTeamDto> searchPage(Pageable pageable) {
+    return pagingSupport.page(contentQuery(), countQuery(), pageable);
+  }
+
+  public Page<MemberTeamDto> searchPageWithParallelCount(Pageable pageable) {
+    return pagingSupport.pageWithParallelCount(contentQuery(), countQuery(), pageable);
+  }
+
+  public Page<MemberTeamDto> searchPageWithApproximateCount(Pageable pageable) {
+    return pagingSupport.pageWithCachedCount(MEMBER_COUNT_KEY, contentQuery(), countQuery(), pageable);
+  }
+
+  public Slice<MemberTeamDto> searchSlice(Pageable pageable) {
+    return pagingSupport.slice(contentQuery(), pageable);
+  }
+
+  private JPAQuery<MemberTeamDto> contentQuery() {
+    return queryFactory
+            .select(new QMemberTeamDto(
+                    member.id,
+                    member.username,
+                    member.age,
+                    team.id,
+                    team.name))
+            .from(member)
+            .leftJoin(member.team, team)
+            .orderBy(member.id.asc());
+  }
+
+  /**
+   * member -> team 은 다대일이라 left join 이 row 수를 바꾸지 않으므로 count 에서는 조인을 뺀다.
+   */
+  private JPAQuery<Long> countQuery() {
+    return queryFactory
+            .select(member.count())
+            .from(member);
+  }
+}
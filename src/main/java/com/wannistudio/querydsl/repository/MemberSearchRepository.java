@@ -0,0 +1,179 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAQueryBase;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUtil;
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 조건이 null 이면 where 절에서 빠지는 동적 검색.
+ *
+ * 조건 값은 상수가 아니라 {@link Param} 으로 넣기 때문에 같은 조합(어떤 필드가 null 이 아닌지)이면
+ * 렌더링된 JPQL 이 항상 같다. 조합별 JPQL 을 한 번만 만들어 두고 이후에는 값만 바인딩하므로
+ * Querydsl 직렬화를 건너뛰고, 하이버네이트도 같은 문자열에 대해 쿼리 플랜 캐시를 재사용한다.
+ */
+@Repository
+public class MemberSearchRepository {
+
+  private static final Param<String> USERNAME = new Param<>(String.class, "username");
+  private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+  private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+  private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+  private static final QMemberTeamDto PROJECTION = new QMemberTeamDto(
+          member.id,
+          member.username,
+          member.age,
+          team.id,
+          team.name);
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final Map<Integer, CompiledQuery> compiledQueries = new ConcurrentHashMap<>();
+
+  public MemberSearchRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return search(condition, Integer.MAX_VALUE);
+  }
+
+  /**
+   * id 순서로 최대 limit 건만 조회한다. 조건이 비어 있어도 전체 테이블을 읽지 않는다.
+   */
+  public List<MemberTeamDto> search(MemberSearchCondition condition, int limit) {
+    CompiledQuery compiled = compiledQueries.computeIfAbsent(shapeOf(condition), shape -> compile(condition));
+
+    Map<ParamExpression<?>, Object> params = new HashMap<>();
+    if (hasText(condition.getUsername())) {
+      params.put(USERNAME, condition.getUsername());
+    }
+    if (hasText(condition.getTeamName())) {
+      params.put(TEAM_NAME, condition.getTeamName());
+    }
+    if (condition.getAgeGoe() != null) {
+      params.put(AGE_GOE, condition.getAgeGoe());
+    }
+    if (condition.getAgeLoe() != null) {
+      params.put(AGE_LOE, condition.getAgeLoe());
+    }
+
+    Query query = em.createQuery(compiled.jpql);
+    JPAUtil.setConstants(query, compiled.constants, params);
+    query.setMaxResults(limit);
+
+    List<?> rows = query.getResultList();
+    List<MemberTeamDto> result = new ArrayList<>(rows.size());
+    for (Object row : rows) {
+      result.add(PROJECTION.newInstance((Object[]) row));
+    }
+    return result;
+  }
+
+  /**
+   * 캐시 없이 매번 Querydsl 로 실행한다. 결과는 {@link #search} 와 같다.
+   */
+  public List<MemberTeamDto> searchUncached(MemberSearchCondition condition) {
+    return where(queryFactory.select(PROJECTION).from(member), condition)
+            .orderBy(member.id.asc())
+            .fetch();
+  }
+
+  /**
+   * member 에서 시작하는 query 에 검색 조건대로 팀을 조인하고 where 절을 붙인다. 조건 값은 상수로 들어간다.
+   */
+  <T> JPAQuery<T> where(JPAQuery<T> query, MemberSearchCondition condition) {
+    return joinTeam(query, condition)
+            .where(
+                    usernameEq(condition.getUsername()),
+                    teamNameEq(condition.getTeamName()),
+                    ageGoe(condition.getAgeGoe()),
+                    ageLoe(condition.getAgeLoe()));
+  }
+
+  int compiledShapes() {
+    return compiledQueries.size();
+  }
+
+  private CompiledQuery compile(MemberSearchCondition condition) {
+    JPAQueryBase<?, ?> query = joinTeam(queryFactory.select(PROJECTION).from(member), condition)
+            .where(
+                    hasText(condition.getUsername()) ? member.username.eq(USERNAME) : null,
+                    hasText(condition.getTeamName()) ? team.name.eq(TEAM_NAME) : null,
+                    condition.getAgeGoe() != null ? member.age.goe(AGE_GOE) : null,
+                    condition.getAgeLoe() != null ? member.age.loe(AGE_LOE) : null)
+            .orderBy(member.id.asc());
+
+    JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+    serializer.serialize(query.getMetadata(), false, null);
+    return new CompiledQuery(serializer.toString(), new HashMap<>(serializer.getConstantToAllLabels()));
+  }
+
+  /**
+   * 팀 이름 조건이 있으면 팀이 없는 회원은 어차피 걸러지므로 inner join 으로 바꾼다.
+   * outer join 은 조인 순서가 member -> team 으로 고정되어 team.name 인덱스로 시작할 수 없다.
+   */
+  private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+    return hasText(condition.getTeamName())
+            ? query.join(member.team, team)
+            : query.leftJoin(member.team, team);
+  }
+
+  private int shapeOf(MemberSearchCondition condition) {
+    int shape = 0;
+    if (hasText(condition.getUsername())) shape |= 1;
+    if (hasText(condition.getTeamName())) shape |= 1 << 1;
+    if (condition.getAgeGoe() != null) shape |= 1 << 2;
+    if (condition.getAgeLoe() != null) shape |= 1 << 3;
+    return shape;
+  }
+
+  private BooleanExpression usernameEq(String username) {
+    return hasText(username) ? member.username.eq(username) : null;
+  }
+
+  private BooleanExpression teamNameEq(String teamName) {
+    return hasText(teamName) ? team.name.eq(teamName) : null;
+  }
+
+  private BooleanExpression ageGoe(Integer ageGoe) {
+    return ageGoe != null ? member.age.goe(ageGoe) : null;
+  }
+
+  private BooleanExpression ageLoe(Integer ageLoe) {
+    return ageLoe != null ? member.age.loe(ageLoe) : null;
+  }
+
+  private static class CompiledQuery {
+    private final String jpql;
+    private final Map<Object, String> constants;
+
+    CompiledQuery(String jpql, Map<Object, String> constants) {
+      this.jpql = jpql;
+      this.constants = constants;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+
+/**
+ * 키셋 페이징에서 사용할 정렬 키.
+ * 정렬 값이 같은 회원은 member.id 로 순서를 고정한다.
+ * after / before 의 앞쪽 goe / loe 는 결과를 바꾸지 않고, OR 조건만으로는 잡지 못하는 인덱스 범위 탐색 시작점을 준다.
+ */
+public enum MemberSortKey {
+
+  USERNAME {
+    @Override
+    BooleanExpression eligible() {
+      // null 은 비교가 불가능하므로 키셋 대상에서 제외한다.
+      return member.username.isNotNull();
+    }
+
+    @Override
+    OrderSpecifier<?> order(boolean ascending) {
+      return ascending ? member.username.asc() : member.username.desc();
+    }
+
+    @Override
+    BooleanExpression after(String value, long id) {
+      return member.username.goe(value)
+              .and(member.username.gt(value).or(member.username.eq(value).and(member.id.gt(id))));
+    }
+
+    @Override
+    BooleanExpression before(String value, long id) {
+      return member.username.loe(value)
+              .and(member.username.lt(value).or(member.username.eq(value).and(member.id.lt(id))));
+    }
+
+    @Override
+    String valueOf(Tuple tuple) {
+      return tuple.get(member.username);
+    }
+  },
+
+  AGE {
+    @Override
+    BooleanExpression eligible() {
+      return null;
+    }
+
+    @Override
+    OrderSpecifier<?> order(boolean ascending) {
+      return ascending ? member.age.asc() : member.age.desc();
+    }
+
+    @Override
+    BooleanExpression after(String value, long id) {
+      int age = Integer.parseInt(value);
+      return member.age.goe(age)
+              .and(member.age.gt(age).or(member.age.eq(age).and(member.id.gt(id))));
+    }
+
+    @Override
+    BooleanExpression before(String value, long id) {
+      int age = Integer.parseInt(value);
+      return member.age.loe(age)
+              .and(member.age.lt(age).or(member.age.eq(age).and(member.id.lt(id))));
+    }
+
+    @Override
+    String valueOf(Tuple tuple) {
+      return String.valueOf(tuple.get(member.age));
+    }
+  };
+
+  abstract BooleanExpression eligible();
+
+  abstract OrderSpecifier<?> order(boolean ascending);
+
+  abstract BooleanExpression after(String value, long id);
+
+  abstract BooleanExpression before(String value, long id);
+
+  abstract String valueOf(Tuple tuple);
+}
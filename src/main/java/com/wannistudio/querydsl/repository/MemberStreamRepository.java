@@ -0,0 +1,70 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import com.wannistudio.querydsl.stream.PageSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 결과를 id 순서로 pageSize 건씩 읽는 스트리밍용 조회.
+ * 페이지마다 마지막 id 이후를 다시 조회(키셋)하므로 페이지 사이에 커서나 커넥션을 들고 있지 않는다.
+ * 검색 조건은 {@link MemberSearchRepository} 와 같다.
+ */
+@Repository
+public class MemberStreamRepository {
+
+  private final JPAQueryFactory queryFactory;
+  private final MemberSearchRepository memberSearchRepository;
+  private final int pageSize;
+
+  public MemberStreamRepository(JPAQueryFactory queryFactory,
+                                MemberSearchRepository memberSearchRepository,
+                                @Value("${querydsl.stream.page-size:500}") int pageSize) {
+    this.queryFactory = queryFactory;
+    this.memberSearchRepository = memberSearchRepository;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * afterId 다음 회원부터 읽는다. null 이면 처음부터.
+   */
+  public PageSource<MemberTeamDto> pages(MemberSearchCondition condition, Long afterId) {
+    return new PageSource<MemberTeamDto>() {
+      private Long lastId = afterId;
+      private boolean exhausted;
+
+      @Override
+      public List<MemberTeamDto> next() {
+        if (exhausted) {
+          return Collections.emptyList();
+        }
+        List<MemberTeamDto> page = page(condition, lastId);
+        exhausted = page.size() < pageSize;
+        if (!page.isEmpty()) {
+          lastId = page.get(page.size() - 1).getMemberId();
+        }
+        return page;
+      }
+    };
+  }
+
+  private List<MemberTeamDto> page(MemberSearchCondition condition, Long afterId) {
+    return memberSearchRepository
+            .where(queryFactory
+                    .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                    .from(member), condition)
+            .where(afterId != null ? member.id.gt(afterId) : null)
+            .orderBy(member.id.asc())
+            .limit(pageSize)
+            .fetch();
+  }
+}
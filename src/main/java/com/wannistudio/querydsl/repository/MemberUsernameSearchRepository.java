@@ -0,0 +1,122 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import com.wannistudio.querydsl.search.UsernameIndex;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * username 접두어 / 부분 문자열 검색. LIKE 'x%' / '%x%' 대신 {@link UsernameIndex} 에서 id 를 찾고
+ * 그 id 만 pk 로 읽으므로 회원 수와 관계없이 limit 건만 조회한다. 결과 순서는 색인이 돌려준 순서를 따른다.
+ *
+ * 색인은 커밋 후에 갱신되므로, 오래된 스냅샷이나 늦은 복제본에서 읽으면 색인에는 있는데 읽히지 않는 회원이 생긴다.
+ * 그런 id 는 이번 검색에서만 건너뛰고, 원본에서도 없는 것을 확인한 id 만 색인에서 지운다.
+ */
+@Repository
+public class MemberUsernameSearchRepository {
+
+  private final JPAQueryFactory queryFactory;
+  private final UsernameIndex usernameIndex;
+  private final TransactionTemplate primary;
+
+  public MemberUsernameSearchRepository(JPAQueryFactory queryFactory, UsernameIndex usernameIndex,
+                                        PlatformTransactionManager transactionManager) {
+    this.queryFactory = queryFactory;
+    this.usernameIndex = usernameIndex;
+    // readOnly 가 아닌 새 트랜잭션은 원본으로 가고, 지금까지 커밋된 데이터를 본다.
+    this.primary = new TransactionTemplate(transactionManager);
+    this.primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * username 순서.
+   */
+  public List<MemberTeamDto> searchByPrefix(String prefix, int limit) {
+    return search(n -> usernameIndex.idsByPrefix(prefix, n), limit);
+  }
+
+  /**
+   * id 순서.
+   */
+  public List<MemberTeamDto> searchContaining(String text, int limit) {
+    return search(n -> usernameIndex.idsContaining(text, n), limit);
+  }
+
+  /**
+   * 읽히지 않은 id 는 건너뛴 만큼 더 찾아 limit 을 채운다. 매번 새로 건너뛴 id 가 생겨야 다시 찾으므로
+   * 반복은 읽히지 않는 id 수를 넘지 않는다.
+   */
+  private List<MemberTeamDto> search(IntFunction<List<Long>> ids, int limit) {
+    Set<Long> skipped = new HashSet<>();
+    while (true) {
+      int requested = limit + skipped.size();
+      List<Long> found = ids.apply(requested);
+      List<Long> candidates = found.stream()
+              .filter(id -> !skipped.contains(id))
+              .limit(limit)
+              .collect(Collectors.toList());
+      if (candidates.isEmpty()) {
+        return Collections.emptyList();
+      }
+      Map<Long, MemberTeamDto> byId = hydrate(candidates);
+      List<MemberTeamDto> result = new ArrayList<>(byId.size());
+      List<Long> missing = new ArrayList<>();
+      for (Long id : candidates) {
+        MemberTeamDto dto = byId.get(id);
+        if (dto != null) {
+          result.add(dto);
+        } else {
+          missing.add(id);
+        }
+      }
+      if (!missing.isEmpty()) {
+        skipped.addAll(missing);
+        usernameIndex.evict(deletedOnPrimary(missing));
+      }
+      if (missing.isEmpty() || found.size() < requested) {
+        return result;
+      }
+    }
+  }
+
+  private List<Long> deletedOnPrimary(List<Long> ids) {
+    return primary.execute(status -> {
+      Set<Long> existing = new HashSet<>(queryFactory
+              .select(member.id)
+              .from(member)
+              .where(member.id.in(ids))
+              .fetch());
+      return ids.stream()
+              .filter(id -> !existing.contains(id))
+              .collect(Collectors.toList());
+    });
+  }
+
+  private Map<Long, MemberTeamDto> hydrate(List<Long> ids) {
+    return queryFactory
+            .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(member.id.in(ids))
+            .fetch()
+            .stream()
+            .collect(Collectors.toMap(MemberTeamDto::getMemberId, Function.identity()));
+  }
+}
@@ -0,0 +1,127 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.QMemberTeamDto;
+import com.wannistudio.querydsl.entity.QMember;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 의 subQuery / subQueryGoe / subQueryIn 패턴을 서브쿼리 없이 실행한다.
+ *
+ * JPQL 에는 윈도우 함수와 from 절 서브쿼리가 없으므로 집계와 비교를 한 번의 스캔으로 끝내야 하는 경우는
+ * 네이티브 SQL 의 윈도우 함수(H2 1.4.198+, MySQL 8+)를 쓰고, 존재 여부 검사는 exists 세미조인으로 바꾼다.
+ */
+@Repository
+public class MemberWindowQueryRepository {
+
+  private static final String SELECT_COLUMNS =
+          "select r.member_id, r.username, r.age, r.team_id, r.team_name from (" +
+          " select m.member_id, m.username, m.age, m.team_id, t.name as team_name, ";
+
+  private static final String FROM_MEMBER =
+          " from member m left outer join team t on t.team_id = m.team_id";
+
+  // memberSub.team.eq(member.team) 는 null 팀끼리 맞지 않으므로 팀별 집계에서 팀 없는 회원은 뺀다.
+  private static final String WITH_TEAM = " where m.team_id is not null";
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+
+  public MemberWindowQueryRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+  }
+
+  /**
+   * 나이가 가장 많은 회원 (subQuery).
+   */
+  public List<MemberTeamDto> findOldest() {
+    return nativeQuery("rank() over (order by m.age desc) as rnk", "", "where r.rnk = 1");
+  }
+
+  /**
+   * 팀별로 나이가 가장 많은 회원. 서브쿼리로 쓰면 회원마다 팀 max 를 다시 구하는 상관 서브쿼리가 된다.
+   * 팀별 조회는 모두 팀 없는 회원을 제외한다.
+   */
+  public List<MemberTeamDto> findOldestPerTeam() {
+    return nativeQuery("rank() over (partition by m.team_id order by m.age desc) as rnk", WITH_TEAM, "where r.rnk = 1");
+  }
+
+  /**
+   * 나이가 전체 평균 이상인 회원 (subQueryGoe).
+   * avg 의 결과 타입은 DB 마다 달라(H2 는 정수 평균을 자른다) 나이 * 인원 >= 합계로 정수끼리 비교한다.
+   */
+  public List<MemberTeamDto> findAtLeastAverageAge() {
+    return nativeQuery("sum(m.age) over () as age_sum, count(*) over () as cnt", "", "where r.age * r.cnt >= r.age_sum");
+  }
+
+  /**
+   * 나이가 자기 팀 평균 이상인 회원.
+   */
+  public List<MemberTeamDto> findAtLeastTeamAverageAge() {
+    return nativeQuery("sum(m.age) over (partition by m.team_id) as age_sum, count(*) over (partition by m.team_id) as cnt",
+            WITH_TEAM, "where r.age * r.cnt >= r.age_sum");
+  }
+
+  /**
+   * 팀별 나이 상위 n 명. 나이가 같으면 id 순.
+   */
+  public List<MemberTeamDto> findTopPerTeam(int n) {
+    return nativeQuery("row_number() over (partition by m.team_id order by m.age desc, m.member_id) as rn", WITH_TEAM, "where r.rn <= ?1", n);
+  }
+
+  /**
+   * ageGt 보다 나이가 많은 회원이 한 명이라도 있는 팀의 회원 (subQueryIn 류의 존재 검사).
+   * in (select ...) 대신 exists 로 검사해 팀원 행을 곱하지 않으므로 distinct 가 필요 없고,
+   * 팀마다 (team_id, age) 인덱스에서 첫 행만 찾으면 멈춘다.
+   */
+  public List<MemberTeamDto> findMembersOfTeamsWithMemberOlderThan(int ageGt) {
+    QMember teammate = new QMember("teammate");
+    return queryFactory
+            .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+            .from(member)
+            .join(member.team, team)
+            .where(JPAExpressions
+                    .selectOne()
+                    .from(teammate)
+                    .where(teammate.team.eq(team), teammate.age.gt(ageGt))
+                    .exists())
+            .orderBy(member.id.asc())
+            .fetch();
+  }
+
+  private List<MemberTeamDto> nativeQuery(String windowColumn, String innerWhere, String where, Object... params) {
+    Query query = em.createNativeQuery(
+            SELECT_COLUMNS + windowColumn + FROM_MEMBER + innerWhere + ") r " + where + " order by r.member_id");
+    for (int i = 0; i < params.length; i++) {
+      query.setParameter(i + 1, params[i]);
+    }
+
+    List<?> rows = query.getResultList();
+    List<MemberTeamDto> result = new ArrayList<>(rows.size());
+    for (Object row : rows) {
+      Object[] columns = (Object[]) row;
+      result.add(new MemberTeamDto(
+              toLong(columns[0]),
+              (String) columns[1],
+              ((Number) columns[2]).intValue(),
+              toLong(columns[3]),
+              (String) columns[4]));
+    }
+    return result;
+  }
+
+  private Long toLong(Object value) {
+    return value == null ? null : ((Number) value).longValue();
+  }
+}
@@ -0,0 +1,155 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * fetchResults() 는 항상 content 쿼리와 count 쿼리를 함께 실행한다.
+ * 여기서는 필요할 때만 count 를 실행하거나, count 를 병렬로 돌리거나, 캐시된 근사값을 사용한다.
+ */
+@Component
+public class QuerydslPagingSupport {
+
+  private final EntityManager em;
+  private final AsyncQueryExecutor asyncQueryExecutor;
+  private final long countCacheTtlMillis;
+  private final Map<String, CachedCount> countCache = new ConcurrentHashMap<>();
+
+  public QuerydslPagingSupport(EntityManager em,
+                               AsyncQueryExecutor asyncQueryExecutor,
+                               @Value("${querydsl.paging.count-cache-ttl:30s}") Duration countCacheTtl) {
+    this.em = em;
+    this.asyncQueryExecutor = asyncQueryExecutor;
+    this.countCacheTtlMillis = countCacheTtl.toMillis();
+  }
+
+  /**
+   * 첫 페이지가 pageSize 보다 작거나 마지막 페이지인 경우 content 만으로 total 을 계산하고 count 쿼리를 생략한다.
+   */
+  public <T> Page<T> page(JPAQuery<T> contentQuery, JPAQuery<?> countQuery, Pageable pageable) {
+    List<T> content = fetchContent(contentQuery, pageable);
+    return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+  }
+
+  /**
+   * total 없이 pageSize + 1 건을 조회해서 다음 페이지 존재 여부만 알려준다. count 쿼리를 실행하지 않는다.
+   */
+  public <T> Slice<T> slice(JPAQuery<T> contentQuery, Pageable pageable) {
+    List<T> content = contentQuery
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize() + 1)
+            .fetch();
+    boolean hasNext = content.size() > pageable.getPageSize();
+    if (hasNext) {
+      content = content.subList(0, pageable.getPageSize());
+    }
+    return new SliceImpl<>(content, pageable, hasNext);
+  }
+
+  /**
+   * count 쿼리를 {@link AsyncQueryExecutor} 의 읽기 전용 트랜잭션에서 content 쿼리와 동시에 실행한다.
+   * 응답 시간이 두 쿼리의 합이 아니라 더 느린 쪽으로 줄어든다.
+   * count 가 필요 없는 페이지로 판명되면 결과는 버린다.
+   * 별도 트랜잭션에서 실행되므로 현재 트랜잭션의 커밋되지 않은 변경은 total 에 반영되지 않는다.
+   * 비동기 대기열이 가득 차서 거절되면 count 를 현재 스레드에서 실행한다.
+   */
+  public <T> Page<T> pageWithParallelCount(JPAQuery<T> contentQuery, JPAQuery<?> countQuery, Pageable pageable) {
+    // 공유 EntityManager 로 복제해 두면 실행 스레드에서 그 스레드의 트랜잭션에 묶인 EntityManager 를 쓴다.
+    JPAQuery<?> detached = countQuery.clone(em);
+    CompletableFuture<Long> total = asyncQueryExecutor.submit(queryFactory -> detached.fetchCount());
+    List<T> content = fetchContent(contentQuery, pageable);
+    Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> awaitCount(total, countQuery));
+    if (!total.isDone()) {
+      total.cancel(false);
+    }
+    return page;
+  }
+
+  /**
+   * 목록 화면처럼 total 이 대략적이어도 되는 경우, cacheKey 별로 TTL 동안 count 결과를 재사용한다.
+   * 마지막 페이지를 조회해서 정확한 total 을 알게 되면 캐시를 그 값으로 갱신한다.
+   */
+  public <T> Page<T> pageWithCachedCount(String cacheKey, JPAQuery<T> contentQuery, JPAQuery<?> countQuery,
+                                         Pageable pageable) {
+    List<T> content = fetchContent(contentQuery, pageable);
+    long seen = pageable.getOffset() + content.size();
+    if (isLastPage(content, pageable)) {
+      countCache.put(cacheKey, new CachedCount(seen, System.currentTimeMillis()));
+      return new PageImpl<>(content, pageable, seen);
+    }
+    // 캐시된 total 이 오래되어 실제보다 작더라도 최소한 현재 페이지까지는 보장한다.
+    return new PageImpl<>(content, pageable, Math.max(cachedCount(cacheKey, countQuery), seen));
+  }
+
+  public void evictCount(String cacheKey) {
+    countCache.remove(cacheKey);
+  }
+
+  private <T> List<T> fetchContent(JPAQuery<T> contentQuery, Pageable pageable) {
+    return contentQuery
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+  }
+
+  /**
+   * PageableExecutionUtils 와 같은 기준: 첫 페이지가 덜 찼거나, 비어 있지 않은 덜 찬 페이지.
+   */
+  private <T> boolean isLastPage(List<T> content, Pageable pageable) {
+    if (content.size() >= pageable.getPageSize()) {
+      return false;
+    }
+    return pageable.getOffset() == 0 || !content.isEmpty();
+  }
+
+  private long cachedCount(String cacheKey, JPAQuery<?> countQuery) {
+    CachedCount cached = countCache.get(cacheKey);
+    long now = System.currentTimeMillis();
+    if (cached != null && now - cached.countedAt < countCacheTtlMillis) {
+      return cached.total;
+    }
+    long total = countQuery.fetchCount();
+    countCache.put(cacheKey, new CachedCount(total, now));
+    return total;
+  }
+
+  private long awaitCount(CompletableFuture<Long> total, JPAQuery<?> countQuery) {
+    try {
+      return total.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RejectedExecutionException) {
+        return countQuery.fetchCount();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static class CachedCount {
+    private final long total;
+    private final long countedAt;
+
+    CachedCount(long total, long countedAt) {
+      this.total = total;
+      this.countedAt = countedAt;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Component;
+
+/**
+ * 조회 전용 경로에서 엔티티를 읽을 때 쓰는 JPAQueryFactory.
+ *
+ * 읽은 엔티티는 read-only 로 관리되어 dirty checking 용 스냅샷을 만들지 않고 flush 대상에서도 빠진다.
+ * 그러므로 반환된 엔티티를 수정해도 DB 에 반영되지 않는다.
+ *
+ * 주의: {@link #selectFrom} 과 {@link #readOnly} 는 쿼리 실행 전 자동 flush 도 하지 않는다(FlushMode.MANUAL).
+ * 같은 트랜잭션에서 아직 flush 하지 않은 변경은 결과에 보이지 않으므로, 쓰기 직후 다시 읽는 곳에서는 쓰지 않는다.
+ * {@link #select} 는 read-only 힌트만 붙이고 flush 모드는 바꾸지 않는다.
+ */
+@Component
+public class ReadOnlyQueryFactory {
+
+  private final JPAQueryFactory queryFactory;
+
+  public ReadOnlyQueryFactory(JPAQueryFactory queryFactory) {
+    this.queryFactory = queryFactory;
+  }
+
+  public <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
+    return readOnly(queryFactory.selectFrom(from));
+  }
+
+  public <T> JPAQuery<T> select(Expression<T> expr) {
+    return queryFactory.select(expr)
+            .setHint(QueryHints.READ_ONLY, true);
+  }
+
+  /**
+   * read-only 힌트와 함께 자동 flush 를 끈다. flush 되지 않은 변경은 결과에 보이지 않는다.
+   */
+  public static <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+    return query
+            .setHint(QueryHints.READ_ONLY, true)
+            .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+  }
+}
@@ -0,0 +1,67 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.QTeamSummaryDto;
+import com.wannistudio.querydsl.dto.TeamSummaryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 목록 화면용 페이징 조회. {@link MemberPagingRepository} 와 같은 count 전략을 쓴다.
+ */
+@Repository
+public class TeamPagingRepository {
+
+  static final String TEAM_COUNT_KEY = "team";
+
+  private final JPAQueryFactory queryFactory;
+  private final QuerydslPagingSupport pagingSupport;
+
+  public TeamPagingRepository(JPAQueryFactory queryFactory, QuerydslPagingSupport pagingSupport) {
+    this.queryFactory = queryFactory;
+    this.pagingSupport = pagingSupport;
+  }
+
+  public Page<TeamSummaryDto> searchPage(Pageable pageable) {
+    return pagingSupport.page(contentQuery(), countQuery(), pageable);
+  }
+
+  public Page<TeamSummaryDto> searchPageWithParallelCount(Pageable pageable) {
+    return pagingSupport.pageWithParallelCount(contentQuery(), countQuery(), pageable);
+  }
+
+  public Page<TeamSummaryDto> searchPageWithApproximateCount(Pageable pageable) {
+    return pagingSupport.pageWithCachedCount(TEAM_COUNT_KEY, contentQuery(), countQuery(), pageable);
+  }
+
+  public Slice<TeamSummaryDto> searchSlice(Pageable pageable) {
+    return pagingSupport.slice(contentQuery(), pageable);
+  }
+
+  private JPAQuery<TeamSummaryDto> contentQuery() {
+    return queryFactory
+            .select(new QTeamSummaryDto(
+                    team.id,
+                    team.name,
+                    member.count()))
+            .from(team)
+            .leftJoin(team.members, member)
+            .groupBy(team.id, team.name)
+            .orderBy(team.id.asc());
+  }
+
+  /**
+   * group by 결과 행 수는 팀 수와 같으므로 count 에서는 조인과 group by 를 뺀다.
+   */
+  private JPAQuery<Long> countQuery() {
+    return queryFactory
+            .select(team.count())
+            .from(team);
+  }
+}
@@ -0,0 +1,76 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Team;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 팀은 자주 읽히고 거의 바뀌지 않으므로 id 조회는 2차 캐시, 이름 / 전체 조회는 쿼리 캐시를 사용한다.
+ */
+@Repository
+public class TeamRepository {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+
+  public TeamRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+  }
+
+  public Team findById(Long id) {
+    return em.find(Team.class, id);
+  }
+
+  public Team findByName(String name) {
+    return queryFactory
+            .selectFrom(team)
+            .where(team.name.eq(name))
+            .setHint(QueryHints.CACHEABLE, true)
+            .fetchOne();
+  }
+
+  /**
+   * 팀 페이지와 각 팀의 members 를 SQL 두 번으로 채운다.
+   * 컬렉션 fetch join 에 페이징을 걸면 하이버네이트가 메모리에서 페이징하므로, 팀 id 만 먼저 페이징한 뒤
+   * 그 id 들에 대해서만 members 를 fetch join 한다. 화면 출력용이므로 read-only 로 읽는다.
+   */
+  public List<Team> findPageWithMembers(Pageable pageable) {
+    List<Long> teamIds = queryFactory
+            .select(team.id)
+            .from(team)
+            .orderBy(team.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+    if (teamIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    return ReadOnlyQueryFactory.readOnly(queryFactory
+            .selectFrom(team).distinct())
+            .leftJoin(team.members, member).fetchJoin()
+            .where(team.id.in(teamIds))
+            .orderBy(team.id.asc(), member.id.asc())
+            // distinct 는 엔티티 중복 제거에만 쓰고 SQL 에는 넣지 않는다.
+            .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+            .fetch();
+  }
+
+  public List<Team> findAll() {
+    return queryFactory
+            .selectFrom(team)
+            .orderBy(team.name.asc())
+            .setHint(QueryHints.CACHEABLE, true)
+            .fetch();
+  }
+}
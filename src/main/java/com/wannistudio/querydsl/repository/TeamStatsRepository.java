@@ -0,0 +1,51 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.TeamStats;
+import com.wannistudio.querydsl.stats.TeamStatsListener;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.wannistudio.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 팀 통계 조회는 team_stats 한 행을 읽는 것으로 끝난다.
+ * rebuild 는 벌크 연산처럼 엔티티 이벤트를 거치지 않은 변경 뒤에 통계를 다시 맞출 때 쓰며, 실제 집계는 커밋 직전에 한다.
+ */
+@Repository
+public class TeamStatsRepository {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TeamStatsListener teamStatsListener;
+
+  public TeamStatsRepository(EntityManager em, JPAQueryFactory queryFactory, TeamStatsListener teamStatsListener) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+    this.teamStatsListener = teamStatsListener;
+  }
+
+  /**
+   * 회원이 한 번도 없었던 팀은 통계 행이 없으므로 0 으로 채운 값을 돌려준다.
+   */
+  public TeamStats findByTeamId(Long teamId) {
+    TeamStats stats = queryFactory
+            .selectFrom(teamStats)
+            .where(teamStats.teamId.eq(teamId))
+            .fetchOne();
+    return stats != null ? stats : new TeamStats(teamId);
+  }
+
+  @Transactional
+  public void rebuild(Long teamId) {
+    teamStatsListener.rebuild(em.unwrap(EventSource.class), teamId);
+  }
+
+  @Transactional
+  public void rebuildAll() {
+    teamStatsListener.rebuildAll(em.unwrap(EventSource.class));
+  }
+}
@@ -0,0 +1,193 @@
+package com.wannistudio.querydsl.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * id 별 문자열에 대한 메모리 색인. 대소문자는 구분하지 않는다.
+ *
+ * - 접두어 검색: 정렬된 맵(값 -> id)에서 범위만 읽는다.
+ * - 부분 문자열 검색: 3글자 조각(trigram)별 id 집합 중 가장 작은 것만 id 순서로 훑으면서 나머지 집합과 원문으로 확인하고,
+ *   limit 건을 찾으면 멈춘다. 3글자보다 짧은 검색어는 조각이 없으므로 전체 값을 id 순서로 훑는다.
+ *
+ * id 집합은 모두 id 순서로 정렬되어 있어 결과를 모은 뒤 다시 정렬하지 않는다. limit 이 1 보다 작으면 빈 결과다.
+ *
+ * 쓰기는 한 번에 하나씩만 하고, 읽기는 잠그지 않는다. 갱신 도중의 읽기는 바뀌기 전이나 후 값 중 하나로 보일 수 있다.
+ */
+class TrigramIndex {
+
+  private static final int GRAM = 3;
+
+  private final NavigableMap<Long, String> values = new ConcurrentSkipListMap<>();
+  private final NavigableMap<String, NavigableSet<Long>> sorted = new ConcurrentSkipListMap<>();
+  private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+  // ConcurrentSkipList* 의 size() 는 전체를 세므로 크기는 따로 센다.
+  private volatile int size;
+
+  synchronized void put(Long id, String value) {
+    String normalized = normalize(value);
+    String previous = values.put(id, normalized);
+    if (normalized.equals(previous)) {
+      return;
+    }
+    if (previous != null) {
+      unlink(id, previous);
+    } else {
+      size++;
+    }
+    sorted.computeIfAbsent(normalized, v -> new ConcurrentSkipListSet<>()).add(id);
+    for (String gram : grams(normalized)) {
+      postings.computeIfAbsent(gram, g -> new Posting()).add(id);
+    }
+  }
+
+  synchronized void remove(Long id) {
+    String previous = values.remove(id);
+    if (previous != null) {
+      size--;
+      unlink(id, previous);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * 값 순서(같으면 id 순서)로 최대 limit 건.
+   */
+  List<Long> prefix(String prefix, int limit) {
+    if (limit < 1) {
+      return Collections.emptyList();
+    }
+    String normalized = normalize(prefix);
+    List<Long> ids = new ArrayList<>();
+    for (Set<Long> sameValue : sorted.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+      for (Long id : sameValue) {
+        ids.add(id);
+        if (ids.size() == limit) {
+          return ids;
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * id 순서로 최대 limit 건.
+   */
+  List<Long> contains(String text, int limit) {
+    if (limit < 1) {
+      return Collections.emptyList();
+    }
+    String normalized = normalize(text);
+    if (normalized.length() < GRAM) {
+      return scan(normalized, limit);
+    }
+
+    List<Posting> candidates = new ArrayList<>();
+    for (String gram : grams(normalized)) {
+      Posting posting = postings.get(gram);
+      if (posting == null) {
+        return Collections.emptyList();
+      }
+      candidates.add(posting);
+    }
+    candidates.sort(Comparator.comparingInt(posting -> posting.size));
+
+    List<Long> ids = new ArrayList<>();
+    for (Long id : candidates.get(0).ids) {
+      if (matchesAll(id, candidates) && normalized(id).contains(normalized)) {
+        ids.add(id);
+        if (ids.size() == limit) {
+          break;
+        }
+      }
+    }
+    return ids;
+  }
+
+  private List<Long> scan(String normalized, int limit) {
+    List<Long> ids = new ArrayList<>();
+    for (Map.Entry<Long, String> entry : values.entrySet()) {
+      if (entry.getValue().contains(normalized)) {
+        ids.add(entry.getKey());
+        if (ids.size() == limit) {
+          break;
+        }
+      }
+    }
+    return ids;
+  }
+
+  private boolean matchesAll(Long id, List<Posting> candidates) {
+    for (int i = 1; i < candidates.size(); i++) {
+      if (!candidates.get(i).ids.contains(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String normalized(Long id) {
+    String value = values.get(id);
+    return value != null ? value : "";
+  }
+
+  private void unlink(Long id, String value) {
+    sorted.computeIfPresent(value, (k, ids) -> {
+      ids.remove(id);
+      return ids.isEmpty() ? null : ids;
+    });
+    for (String gram : grams(value)) {
+      postings.computeIfPresent(gram, (k, posting) -> posting.remove(id) ? null : posting);
+    }
+  }
+
+  /**
+   * 같은 trigram 을 가진 id. 쓰기는 TrigramIndex 의 잠금 안에서만 한다.
+   */
+  private static class Posting {
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    private volatile int size;
+
+    void add(Long id) {
+      if (ids.add(id)) {
+        size++;
+      }
+    }
+
+    /**
+     * @return 비었으면 true
+     */
+    boolean remove(Long id) {
+      if (ids.remove(id)) {
+        size--;
+      }
+      return size == 0;
+    }
+  }
+
+  private static Set<String> grams(String value) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM <= value.length(); i++) {
+      grams.add(value.substring(i, i + GRAM));
+    }
+    return grams;
+  }
+
+  private static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,144 @@
+package com.wannistudio.querydsl.search;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Member.username 의 접두어 / 부분 문자열 검색용 메모리 색인. 결과는 회원 id 이고 실제 데이터는 DB 에서 다시 읽는다.
+ *
+ * 시작할 때 전체를 읽어 만들고, 이후에는 {@link UsernameIndexListener} 가 커밋된 insert / update / delete 를 반영한다.
+ * JPQL 벌크 delete 나 네이티브 SQL 로 지운 회원은 색인에 남아 있다가, 검색에서 읽히지 않고 원본에서도 없는 것이
+ * 확인되면 {@link #evict} 로 지운다.
+ * 네이티브 SQL 로 넣거나 바꾼 회원은 {@link #rebuild()} 해야 보인다.
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+
+  private static final int LOAD_BATCH_SIZE = 10_000;
+
+  private final JPAQueryFactory queryFactory;
+  private final Object rebuildLock = new Object();
+
+  private volatile TrigramIndex index = new TrigramIndex();
+  /** rebuild 중에 커밋된 변경. 새 색인에 다시 반영한다. */
+  private List<Map<Long, String>> replay;
+
+  public UsernameIndex(JPAQueryFactory queryFactory) {
+    this.queryFactory = queryFactory;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    long start = System.currentTimeMillis();
+    rebuild();
+    log.info("username index loaded: {} members in {}ms", size(), System.currentTimeMillis() - start);
+  }
+
+  /**
+   * username 이 prefix 로 시작하는 회원 id. username 순서로 최대 limit 건.
+   */
+  public List<Long> idsByPrefix(String prefix, int limit) {
+    return hasText(prefix) ? index.prefix(prefix, limit) : Collections.emptyList();
+  }
+
+  /**
+   * username 에 text 가 들어 있는 회원 id. id 순서로 최대 limit 건.
+   */
+  public List<Long> idsContaining(String text, int limit) {
+    return hasText(text) ? index.contains(text, limit) : Collections.emptyList();
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * 커밋된 변경을 반영한다. 값이 null 이면 삭제.
+   */
+  synchronized void apply(Map<Long, String> changes) {
+    apply(index, changes);
+    if (replay != null) {
+      replay.add(changes);
+    }
+  }
+
+  /**
+   * 원본 DB 에 없는 것으로 확인된 회원을 지운다.
+   */
+  public void evict(Collection<Long> ids) {
+    Map<Long, String> removed = new HashMap<>();
+    ids.forEach(id -> removed.put(id, null));
+    apply(removed);
+  }
+
+  /**
+   * DB 에서 다시 읽어 새 색인을 만든 뒤 바꿔 끼운다. 만드는 동안에도 기존 색인으로 검색된다.
+   */
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      synchronized (this) {
+        replay = new ArrayList<>();
+      }
+      try {
+        TrigramIndex fresh = load();
+        synchronized (this) {
+          replay.forEach(changes -> apply(fresh, changes));
+          index = fresh;
+        }
+      } finally {
+        synchronized (this) {
+          replay = null;
+        }
+      }
+    }
+  }
+
+  private TrigramIndex load() {
+    TrigramIndex fresh = new TrigramIndex();
+    Long lastId = 0L;
+    while (true) {
+      List<Tuple> rows = queryFactory
+              .select(member.id, member.username)
+              .from(member)
+              .where(member.id.gt(lastId))
+              .orderBy(member.id.asc())
+              .limit(LOAD_BATCH_SIZE)
+              .fetch();
+      for (Tuple row : rows) {
+        String username = row.get(member.username);
+        if (username != null) {
+          fresh.put(row.get(member.id), username);
+        }
+      }
+      if (rows.size() < LOAD_BATCH_SIZE) {
+        return fresh;
+      }
+      lastId = rows.get(rows.size() - 1).get(member.id);
+    }
+  }
+
+  private static void apply(TrigramIndex target, Map<Long, String> changes) {
+    changes.forEach((id, username) -> {
+      if (username != null) {
+        target.put(id, username);
+      } else {
+        target.remove(id);
+      }
+    });
+  }
+}
@@ -0,0 +1,66 @@
+package com.wannistudio.querydsl.search;
+
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.event.EntityWriteListener;
+import com.wannistudio.querydsl.event.TransactionBuffer;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 회원 insert / username 변경 / delete 를 세션별로 모아 두었다가 커밋되면 {@link UsernameIndex} 에 반영한다.
+ * 롤백되면 버린다.
+ */
+public class UsernameIndexListener implements EntityWriteListener {
+
+  // 같은 회원의 마지막 변경만 남긴다.
+  private final TransactionBuffer<Map<Long, String>> pending;
+
+  public UsernameIndexListener(UsernameIndex usernameIndex) {
+    this.pending = new TransactionBuffer<>(LinkedHashMap::new, (changes, success) -> {
+      if (success) {
+        usernameIndex.apply(changes);
+      }
+    });
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Member) {
+      changes(event.getSession()).put((Long) event.getId(), username(event.getState(), event.getPersister()));
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Member)) {
+      return;
+    }
+    EntityPersister persister = event.getPersister();
+    String username = username(event.getState(), persister);
+    if (event.getOldState() == null || !Objects.equals(username(event.getOldState(), persister), username)) {
+      changes(event.getSession()).put((Long) event.getId(), username);
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Member) {
+      changes(event.getSession()).put((Long) event.getId(), null);
+    }
+  }
+
+  private Map<Long, String> changes(EventSource session) {
+    return pending.get(session);
+  }
+
+  private String username(Object[] state, EntityPersister persister) {
+    return (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+  }
+}
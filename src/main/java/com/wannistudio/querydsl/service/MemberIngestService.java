@@ -0,0 +1,117 @@
+package com.wannistudio.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberCreateDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.wannistudio.querydsl.entity.QTeam.team;
+
+/**
+ * 대량 회원 적재.
+ *
+ * rows 를 한 번만 읽으면서 batchSize 건씩 묶어 처리한다. 묶음마다 처음 보는 팀 이름만 조회 / 생성하고, 회원을 persist 한 뒤
+ * flush 해서 INSERT 를 JDBC batch 로 보내고 이번에 만든 엔티티만 detach 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * 호출한 쪽이 같은 트랜잭션에서 들고 있던 엔티티는 그대로 영속 상태로 남는다.
+ * hibernate.jdbc.batch_size 도 같은 값(querydsl.batch.size)을 쓰고, order_inserts 로 team / member INSERT 를
+ * 섞지 않아 batch 가 끊기지 않는다. id 는 pooled 시퀀스에서 allocationSize 단위로 받아온다.
+ */
+@Service
+public class MemberIngestService {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final int batchSize;
+
+  public MemberIngestService(EntityManager em,
+                             JPAQueryFactory queryFactory,
+                             @Value("${querydsl.batch.size}") int batchSize) {
+    this.em = em;
+    this.queryFactory = queryFactory;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * rows 전체를 한 트랜잭션으로 적재하고 적재한 회원 수를 반환한다. rows 는 한 번만 순회하므로 스트림처럼
+   * 한 번만 읽을 수 있는 Iterable 이어도 되고, 메모리에는 한 묶음만 올라간다.
+   * teamName 이 없는 팀은 새로 만들고, 한 번 찾은 팀은 다시 조회하지 않는다.
+   */
+  @Transactional
+  public long ingest(Iterable<MemberCreateDto> rows) {
+    Map<String, Long> teamIds = new HashMap<>();
+    List<MemberCreateDto> chunk = new ArrayList<>(batchSize);
+    long count = 0;
+    for (MemberCreateDto row : rows) {
+      chunk.add(row);
+      if (chunk.size() == batchSize) {
+        count += ingestChunk(chunk, teamIds);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      count += ingestChunk(chunk, teamIds);
+    }
+    return count;
+  }
+
+  private int ingestChunk(List<MemberCreateDto> chunk, Map<String, Long> teamIds) {
+    List<Object> persisted = new ArrayList<>(chunk.size());
+    resolveTeams(chunk, teamIds, persisted);
+
+    for (MemberCreateDto row : chunk) {
+      Member member = new Member(row.getUsername(), row.getAge());
+      if (row.getTeamName() != null) {
+        // changeTeam() 은 team.members 컬렉션을 초기화하므로 연관관계의 주인 쪽만 설정한다.
+        member.setTeam(em.getReference(Team.class, teamIds.get(row.getTeamName())));
+      }
+      em.persist(member);
+      persisted.add(member);
+    }
+
+    em.flush();
+    persisted.forEach(em::detach);
+    return chunk.size();
+  }
+
+  private void resolveTeams(List<MemberCreateDto> chunk, Map<String, Long> teamIds, List<Object> persisted) {
+    Set<String> names = new LinkedHashSet<>();
+    for (MemberCreateDto row : chunk) {
+      if (row.getTeamName() != null && !teamIds.containsKey(row.getTeamName())) {
+        names.add(row.getTeamName());
+      }
+    }
+    if (names.isEmpty()) {
+      return;
+    }
+
+    List<Tuple> existing = queryFactory
+            .select(team.name, team.id)
+            .from(team)
+            .where(team.name.in(names))
+            .fetch();
+    for (Tuple tuple : existing) {
+      teamIds.putIfAbsent(tuple.get(team.name), tuple.get(team.id));
+    }
+
+    for (String name : names) {
+      if (!teamIds.containsKey(name)) {
+        Team newTeam = new Team(name);
+        em.persist(newTeam);
+        teamIds.put(name, newTeam.getId());
+        persisted.add(newTeam);
+      }
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package com.wannistudio.querydsl.stats;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 한 트랜잭션 동안 쌓인 팀별 변화량. 커밋 직전(마지막 flush 이후) 같은 커넥션으로 team_stats 에 반영한다.
+ *
+ * 팀을 저장할 때 빈 통계 행을 같이 만들어 두므로 회원 변화는 항상 기존 행에 더하기만 한다. 같은 팀에 동시에 회원을 넣는
+ * 트랜잭션들은 그 행의 잠금을 차례로 잡을 뿐 서로의 변화량을 덮어쓰지 않는다.
+ * 행이 없는 팀(JPA 밖에서 만든 팀)은 변화량만으로 행을 만든다. 이전 회원까지 맞추려면 rebuild 해야 한다.
+ */
+class TeamStatsDeltas implements BeforeTransactionCompletionProcess {
+
+  private static final String SEED =
+          "insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)";
+
+  private static final String UPSERT =
+          "insert into team_stats (team_id, member_count, age_sum) values (?, ?, ?)" +
+          " on duplicate key update member_count = member_count + values(member_count), age_sum = age_sum + values(age_sum)";
+
+  private static final String EXTEND_RANGE =
+          "update team_stats set age_min = least(coalesce(age_min, ?), ?), age_max = greatest(coalesce(age_max, ?), ?)" +
+          " where team_id = ?";
+
+  private static final String RECOMPUTE_RANGE =
+          "update team_stats set" +
+          " age_min = (select min(m.age) from member m where m.team_id = ?)," +
+          " age_max = (select max(m.age) from member m where m.team_id = ?)" +
+          " where team_id = ?";
+
+  private static final String DELETE = "delete from team_stats where team_id = ?";
+
+  private static final String INSERT_FROM_MEMBERS =
+          "insert into team_stats (team_id, member_count, age_sum, age_min, age_max)" +
+          " select ?, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age) from member m where m.team_id = ?";
+
+  private static final String DELETE_ALL = "delete from team_stats";
+
+  private static final String INSERT_ALL_FROM_MEMBERS =
+          "insert into team_stats (team_id, member_count, age_sum, age_min, age_max)" +
+          " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+          " from team t left outer join member m on m.team_id = t.team_id group by t.team_id";
+
+  private final Map<Long, Delta> deltas = new LinkedHashMap<>();
+  private boolean rebuildAll;
+
+  /**
+   * 새로 저장된 팀. 커밋 시 빈 통계 행을 먼저 만든다.
+   */
+  void created(Long teamId) {
+    delta(teamId).created = true;
+  }
+
+  /**
+   * 삭제된 팀. 커밋 시 통계 행을 지우고 이 팀의 다른 변화량은 반영하지 않는다.
+   */
+  void deleted(Long teamId) {
+    delta(teamId).deleted = true;
+  }
+
+  void added(Long teamId, int age) {
+    Delta delta = delta(teamId);
+    delta.count++;
+    delta.ageSum += age;
+    delta.addedMin = delta.addedMin == null ? age : Math.min(delta.addedMin, age);
+    delta.addedMax = delta.addedMax == null ? age : Math.max(delta.addedMax, age);
+  }
+
+  void removed(Long teamId, int age) {
+    Delta delta = delta(teamId);
+    delta.count--;
+    delta.ageSum -= age;
+    // 빠진 값이 최소 / 최대였는지 모르므로 이 팀만 다시 계산한다.
+    delta.recomputeRange = true;
+  }
+
+  /**
+   * 커밋 시 변화량 대신 현재 회원으로 이 팀의 통계를 다시 만든다.
+   */
+  void rebuild(Long teamId) {
+    delta(teamId).rebuild = true;
+  }
+
+  /**
+   * 커밋 시 모든 팀의 통계를 다시 만든다. 팀별 변화량은 무시된다.
+   */
+  void rebuildAll() {
+    rebuildAll = true;
+  }
+
+  private Delta delta(Long teamId) {
+    return deltas.computeIfAbsent(teamId, id -> new Delta());
+  }
+
+  @Override
+  public void doBeforeTransactionCompletion(SessionImplementor session) {
+    session.doWork(this::apply);
+  }
+
+  private void apply(Connection connection) throws SQLException {
+    if (rebuildAll) {
+      try (PreparedStatement delete = connection.prepareStatement(DELETE_ALL);
+           PreparedStatement insert = connection.prepareStatement(INSERT_ALL_FROM_MEMBERS)) {
+        delete.executeUpdate();
+        insert.executeUpdate();
+      }
+      return;
+    }
+
+    try (PreparedStatement seed = connection.prepareStatement(SEED);
+         PreparedStatement upsert = connection.prepareStatement(UPSERT);
+         PreparedStatement extend = connection.prepareStatement(EXTEND_RANGE);
+         PreparedStatement recompute = connection.prepareStatement(RECOMPUTE_RANGE);
+         PreparedStatement delete = connection.prepareStatement(DELETE);
+         PreparedStatement insert = connection.prepareStatement(INSERT_FROM_MEMBERS)) {
+      for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+        Long teamId = entry.getKey();
+        Delta delta = entry.getValue();
+
+        if (delta.deleted) {
+          delete.setLong(1, teamId);
+          delete.executeUpdate();
+          continue;
+        }
+
+        if (delta.created) {
+          seed.setLong(1, teamId);
+          seed.executeUpdate();
+        }
+
+        if (delta.rebuild) {
+          delete.setLong(1, teamId);
+          delete.executeUpdate();
+          insertFromMembers(insert, teamId);
+          continue;
+        }
+
+        if (delta.count == 0 && delta.ageSum == 0 && !delta.recomputeRange && delta.addedMin == null) {
+          continue;
+        }
+        upsert.setLong(1, teamId);
+        upsert.setLong(2, delta.count);
+        upsert.setLong(3, delta.ageSum);
+        upsert.executeUpdate();
+
+        if (delta.recomputeRange) {
+          recompute.setLong(1, teamId);
+          recompute.setLong(2, teamId);
+          recompute.setLong(3, teamId);
+          recompute.executeUpdate();
+        } else if (delta.addedMin != null) {
+          extend.setInt(1, delta.addedMin);
+          extend.setInt(2, delta.addedMin);
+          extend.setInt(3, delta.addedMax);
+          extend.setInt(4, delta.addedMax);
+          extend.setLong(5, teamId);
+          extend.executeUpdate();
+        }
+      }
+    }
+  }
+
+  private void insertFromMembers(PreparedStatement insert, Long teamId) throws SQLException {
+    insert.setLong(1, teamId);
+    insert.setLong(2, teamId);
+    insert.executeUpdate();
+  }
+
+  private static class Delta {
+    private boolean created;
+    private long count;
+    private long ageSum;
+    private Integer addedMin;
+    private Integer addedMax;
+    private boolean recomputeRange;
+    private boolean rebuild;
+    private boolean deleted;
+  }
+}
@@ -0,0 +1,116 @@
+package com.wannistudio.querydsl.stats;
+
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.event.EntityWriteListener;
+import com.wannistudio.querydsl.event.TransactionBuffer;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Objects;
+
+/**
+ * 회원 저장 / 팀 변경(Member.changeTeam) / 나이 변경 / 삭제를 flush 시점에 받아 팀별 변화량만 모아 두고,
+ * 커밋 직전에 {@link TeamStatsDeltas} 로 team_stats 에 더한다. 팀 통계 조회는 집계 없이 한 행만 읽는다.
+ * 팀을 저장하면 같은 트랜잭션에서 빈 통계 행을 만들어 두고, 팀을 삭제하면 통계 행도 지운다.
+ *
+ * JPQL 벌크 update / delete 는 이벤트가 발생하지 않으므로 해당 경로에서는 {@link #rebuild} / {@link #rebuildAll} 로
+ * 커밋 시 다시 집계하도록 표시해야 한다.
+ */
+public class TeamStatsListener implements EntityWriteListener {
+
+  private final TransactionBuffer<TeamStatsDeltas> pending = new TransactionBuffer<>(TeamStatsDeltas::new);
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Team) {
+      deltas(event.getSession()).created((Long) event.getId());
+    } else if (event.getEntity() instanceof Member) {
+      Object[] state = event.getState();
+      EntityPersister persister = event.getPersister();
+      Long teamId = teamId(state, persister);
+      if (teamId != null) {
+        deltas(event.getSession()).added(teamId, age(state, persister));
+      }
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Member)) {
+      return;
+    }
+    EntityPersister persister = event.getPersister();
+    Object[] oldState = event.getOldState();
+    Object[] state = event.getState();
+    Long newTeamId = teamId(state, persister);
+
+    if (oldState == null) {
+      // 준영속 엔티티 update 처럼 이전 상태를 모르면 새 팀만 전부 다시 계산한다.
+      if (newTeamId != null) {
+        deltas(event.getSession()).rebuild(newTeamId);
+      }
+      return;
+    }
+
+    Long oldTeamId = teamId(oldState, persister);
+    int oldAge = age(oldState, persister);
+    int newAge = age(state, persister);
+    if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+      return;
+    }
+
+    TeamStatsDeltas deltas = deltas(event.getSession());
+    if (oldTeamId != null) {
+      deltas.removed(oldTeamId, oldAge);
+    }
+    if (newTeamId != null) {
+      deltas.added(newTeamId, newAge);
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Team) {
+      deltas(event.getSession()).deleted((Long) event.getId());
+    } else if (event.getEntity() instanceof Member) {
+      Object[] state = event.getDeletedState();
+      EntityPersister persister = event.getPersister();
+      Long teamId = teamId(state, persister);
+      if (teamId != null) {
+        deltas(event.getSession()).removed(teamId, age(state, persister));
+      }
+    }
+  }
+
+  public void rebuild(EventSource session, Long teamId) {
+    deltas(session).rebuild(teamId);
+  }
+
+  public void rebuildAll(EventSource session) {
+    deltas(session).rebuildAll();
+  }
+
+  private TeamStatsDeltas deltas(EventSource session) {
+    return pending.get(session);
+  }
+
+  private Long teamId(Object[] state, EntityPersister persister) {
+    Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+    if (team == null) {
+      return null;
+    }
+    if (team instanceof HibernateProxy) {
+      return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+    }
+    return ((Team) team).getId();
+  }
+
+  private int age(Object[] state, EntityPersister persister) {
+    return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+  }
+}
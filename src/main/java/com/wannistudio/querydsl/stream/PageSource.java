@@ -0,0 +1,13 @@
+package com.wannistudio.querydsl.stream;
+
+import java.util.List;
+
+/**
+ * 앞에서부터 한 페이지씩 읽는 조회. 빈 페이지를 돌려주면 끝이다.
+ * 호출할 때마다 다른 스레드, 다른 트랜잭션일 수 있으므로 커서 대신 마지막 키만 들고 있어야 한다.
+ */
+@FunctionalInterface
+public interface PageSource<T> {
+
+  List<T> next();
+}
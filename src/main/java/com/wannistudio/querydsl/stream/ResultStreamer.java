@@ -0,0 +1,199 @@
+package com.wannistudio.querydsl.stream;
+
+import com.wannistudio.querydsl.repository.AsyncQueryExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link PageSource} 를 서블릿 비동기 + 논블로킹 쓰기(WriteListener)로 흘려보낸다.
+ *
+ * 다음 페이지는 이전 페이지를 소켓에 다 넘긴 뒤(isReady)에만 조회하므로 느린 클라이언트가 받는 만큼만 읽고,
+ * 응답 하나가 메모리에 들고 있는 것은 많아야 한 페이지다. 클라이언트를 기다리는 동안에는 스레드도 커넥션도 잡지 않는다.
+ * 페이지 조회는 {@link AsyncQueryExecutor} 에서 읽기 전용 트랜잭션으로 실행하므로 동시 조회 수는 그쪽 설정으로 제한된다.
+ * 동시에 열 수 있는 스트림 수는 max-streams 로 제한하고, 넘으면 503 과 함께 요청한 형식의 오류({@link StreamFormat#error})를 돌려준다.
+ */
+@Slf4j
+@Component
+public class ResultStreamer {
+
+  private final AsyncQueryExecutor asyncQueryExecutor;
+  private final Semaphore streams;
+  private final long timeoutMillis;
+
+  public ResultStreamer(AsyncQueryExecutor asyncQueryExecutor,
+                        @Value("${querydsl.stream.max-streams:1000}") int maxStreams,
+                        @Value("${querydsl.stream.timeout:30m}") Duration timeout) {
+    this.asyncQueryExecutor = asyncQueryExecutor;
+    this.streams = new Semaphore(maxStreams);
+    this.timeoutMillis = timeout.toMillis();
+  }
+
+  public <T> void stream(HttpServletRequest request, HttpServletResponse response, MediaType contentType,
+                         PageSource<T> source, StreamFormat<T> format) throws IOException {
+    if (!streams.tryAcquire()) {
+      // 예외로 넘기면 핸들러의 produces(ndjson / event-stream)로 오류 본문을 만들 수 없어 빈 응답이 된다.
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType(contentType.toString());
+      response.getOutputStream().write(format.error(new IllegalStateException("동시에 열 수 있는 스트림 수를 넘었습니다.")));
+      return;
+    }
+    StreamWriter<T> writer = null;
+    try {
+      response.setContentType(contentType.toString());
+      AsyncContext async = request.startAsync();
+      async.setTimeout(timeoutMillis);
+      writer = new StreamWriter<>(async, response.getOutputStream(), source, format);
+      async.addListener(writer);
+      writer.out.setWriteListener(writer);
+    } catch (IOException | RuntimeException e) {
+      // 리스너를 이미 등록했다면 나중에 onComplete 도 자리를 돌려주므로 같은 플래그로 한 번만 돌려준다.
+      if (writer != null) {
+        writer.release();
+      } else {
+        streams.release();
+      }
+      throw e;
+    }
+  }
+
+  private class StreamWriter<T> implements WriteListener, AsyncListener {
+
+    private final AsyncContext async;
+    private final ServletOutputStream out;
+    private final PageSource<T> source;
+    private final StreamFormat<T> format;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private byte[] chunk;
+    private boolean flushPending;
+    private boolean loading;
+    private boolean exhausted;
+    private boolean finished;
+    private boolean closed;
+
+    StreamWriter(AsyncContext async, ServletOutputStream out, PageSource<T> source, StreamFormat<T> format) {
+      this.async = async;
+      this.out = out;
+      this.source = source;
+      this.format = format;
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+      drain();
+    }
+
+    /**
+     * 쓸 수 있는 동안 쌓인 바이트를 쓰고, 다 쓰면 다음 페이지를 요청한다. isReady 가 false 면 컨테이너가 다시 부른다.
+     */
+    private synchronized void drain() throws IOException {
+      while (!closed && out.isReady()) {
+        if (chunk != null) {
+          out.write(chunk);
+          chunk = null;
+          flushPending = true;
+        } else if (flushPending) {
+          out.flush();
+          flushPending = false;
+        } else if (finished) {
+          close();
+        } else if (exhausted) {
+          chunk = format.end();
+          finished = true;
+        } else if (loading) {
+          return;
+        } else {
+          loading = true;
+          asyncQueryExecutor.submit(queryFactory -> source.next())
+                  .whenComplete(this::onPage);
+          return;
+        }
+      }
+    }
+
+    private synchronized void onPage(List<T> page, Throwable error) {
+      loading = false;
+      if (closed) {
+        return;
+      }
+      try {
+        if (error != null) {
+          fail(error instanceof CompletionException ? error.getCause() : error);
+        } else if (page.isEmpty()) {
+          exhausted = true;
+        } else {
+          chunk = format.page(page);
+        }
+        drain();
+      } catch (IOException | RuntimeException e) {
+        log.debug("stream aborted", e);
+        close();
+      }
+    }
+
+    private void fail(Throwable error) {
+      log.warn("stream query failed", error);
+      chunk = format.error(error);
+      finished = true;
+    }
+
+    private void close() {
+      if (!closed) {
+        closed = true;
+        async.complete();
+      }
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+      // 클라이언트가 연결을 끊은 경우
+      log.debug("stream write failed", t);
+      close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        streams.release();
+      }
+    }
+
+    @Override
+    public synchronized void onTimeout(AsyncEvent event) {
+      log.warn("stream timed out after {}ms", timeoutMillis);
+      close();
+    }
+
+    @Override
+    public synchronized void onError(AsyncEvent event) {
+      close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+  }
+}
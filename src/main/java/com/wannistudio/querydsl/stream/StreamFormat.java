@@ -0,0 +1,22 @@
+package com.wannistudio.querydsl.stream;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 페이지를 응답 바이트로 바꾼다. NDJSON, SSE 처럼 행 단위로 끊어 읽을 수 있는 형식이어야 한다.
+ */
+public interface StreamFormat<T> {
+
+  byte[] page(List<T> rows) throws IOException;
+
+  /** 정상적으로 끝났을 때 마지막에 쓴다. */
+  default byte[] end() {
+    return new byte[0];
+  }
+
+  /** 응답을 이미 보내기 시작한 뒤 조회가 실패했을 때 마지막에 쓴다. */
+  default byte[] error(Throwable e) {
+    return new byte[0];
+  }
+}
@@ -8,8 +8,11 @@ import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberDtoProjection;
 import com.wannistudio.querydsl.dto.QMemberDto;
 import com.wannistudio.querydsl.dto.UserDto;
+import com.wannistudio.querydsl.dto.UserDtoProjection;
+import com.wannistudio.querydsl.entity.AgeBucket;
 import com.wannistudio.querydsl.entity.Member;
 import com.wannistudio.querydsl.entity.QMember;
 import com.wannistudio.querydsl.entity.QTeam;
@@ -427,6 +430,33 @@ public class QuerydslBasicTest {
     }
   }
 
+  @Test
+  public void ageBucketColumn() {
+    // complexCase 와 같은 구간을 저장된 컬럼으로 읽고 필터링한다.
+    final List<String> result = queryFactory
+            .select(member.username)
+            .from(member)
+            .where(member.ageBucket.eq(AgeBucket.AGE_0_20))
+            .orderBy(member.username.asc())
+            .fetch();
+
+    assertThat(result).containsExactly("member1", "member2");
+  }
+
+  @Test
+  public void displayKeyColumn() {
+    final Member result = queryFactory
+            .selectFrom(member)
+            .where(member.displayKey.eq("member1_10"))
+            .fetchOne();
+
+    assertThat(result.getUsername()).isEqualTo("member1");
+
+    result.setAge(25);
+    assertThat(result.getAgeBucket()).isEqualTo(AgeBucket.AGE_21_30);
+    assertThat(result.getDisplayKey()).isEqualTo("member1_25");
+  }
+
   @Test
   public void simpleProjection() {
     final List<String> result = queryFactory
@@ -550,4 +580,27 @@ public class QuerydslBasicTest {
       System.out.println(memberDto);
     }
   }
+
+  @Test
+  public void findDtoByProjectionFactory() {
+    final List<MemberDto> result = queryFactory
+            .select(new MemberDtoProjection(member.username, member.age))
+            .from(member)
+            .fetch();
+
+    assertThat(result).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+    assertThat(result).extracting("age").containsExactly(10, 20, 30, 40);
+  }
+
+  @Test
+  public void findUserDtoByProjectionFactory() {
+    // 별칭 없이 생성자 인자 순서로 UserDto.name <- member.username 이 매핑된다.
+    final List<UserDto> result = queryFactory
+            .select(new UserDtoProjection(member.username, member.age))
+            .from(member)
+            .where(member.username.eq("member1"))
+            .fetch();
+
+    assertThat(result).containsExactly(new UserDto("member1", 10));
+  }
 }
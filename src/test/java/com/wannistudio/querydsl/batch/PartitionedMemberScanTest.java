@@ -0,0 +1,169 @@
+package com.wannistudio.querydsl.batch;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.wannistudio.querydsl.batch.QScanCheckpoint.scanCheckpoint;
+import static com.wannistudio.querydsl.batch.QScanJob.scanJob;
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 스캔은 구간마다 별도 EntityManager 로 커밋하므로 데이터도 커밋해 두고 끝나면 지운다.
+ * H2 는 FOR UPDATE NOWAIT 가 없어 잠금 대기 시간(LOCK_TIMEOUT)만큼 기다린 뒤 실패하므로 짧게 둔다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:partitioned-scan;MODE=MYSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=200")
+class PartitionedMemberScanTest {
+
+  static final int MEMBERS = 200;
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  PartitionedMemberScan partitionedMemberScan;
+
+  @BeforeEach
+  public void before() {
+    transactionTemplate.execute(status -> {
+      for (int i = 0; i < MEMBERS; i++) {
+        em.persist(new Member("member" + i, 0));
+      }
+      return null;
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      queryFactory.delete(scanCheckpoint).execute();
+      queryFactory.delete(scanJob).execute();
+      queryFactory.delete(member).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void everyMemberIsProcessedOnceAcrossPartitions() {
+    Map<Long, String> seenBy = new ConcurrentHashMap<>();
+    Set<Long> duplicates = ConcurrentHashMap.newKeySet();
+
+    ScanProgress progress = partitionedMemberScan.scan("visit", 4, 15, (scanEm, batch) -> {
+      for (Member m : batch) {
+        if (seenBy.put(m.getId(), Thread.currentThread().getName()) != null) {
+          duplicates.add(m.getId());
+        }
+      }
+    });
+
+    assertThat(seenBy).hasSize(MEMBERS);
+    assertThat(duplicates).isEmpty();
+    assertThat(progress.isCompleted()).isTrue();
+    assertThat(progress.getPartitions()).isEqualTo(4);
+    assertThat(progress.getProcessed()).isEqualTo(MEMBERS);
+  }
+
+  @Test
+  public void changesAreCommittedPerBatch() {
+    partitionedMemberScan.scan("age", 3, 20, (scanEm, batch) -> batch.forEach(m -> m.setAge(m.getAge() + 1)));
+
+    assertThat(ages()).containsOnly(1);
+  }
+
+  @Test
+  public void restartResumesAfterLastCommittedBatch() {
+    Long failingId = queryFactory.select(member.id.max()).from(member).fetchOne();
+    AtomicBoolean fail = new AtomicBoolean(true);
+
+    assertThatThrownBy(() -> partitionedMemberScan.scan("restart", 4, 10, (scanEm, batch) -> {
+      for (Member m : batch) {
+        if (fail.get() && m.getId().equals(failingId)) {
+          throw new IllegalStateException("boom");
+        }
+        m.setAge(m.getAge() + 1);
+      }
+    })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+    ScanProgress failed = partitionedMemberScan.progress("restart");
+    assertThat(failed.isCompleted()).isFalse();
+    assertThat(failed.getCompletedPartitions()).isEqualTo(3);
+    assertThat(failed.getProcessed()).isLessThan(MEMBERS);
+
+    fail.set(false);
+    ScanProgress resumed = partitionedMemberScan.scan("restart", 4, 10, (scanEm, batch) -> batch.forEach(m -> m.setAge(m.getAge() + 1)));
+
+    assertThat(resumed.isCompleted()).isTrue();
+    assertThat(resumed.getProcessed()).isEqualTo(MEMBERS);
+    // 실패한 배치는 롤백되었으므로 두 번 실행해도 모든 회원이 한 번씩만 처리된다.
+    assertThat(ages()).containsOnly(1);
+  }
+
+  @Test
+  public void resetStartsOver() {
+    partitionedMemberScan.scan("reset", 2, 50, (scanEm, batch) -> { });
+    partitionedMemberScan.reset("reset");
+
+    assertThat(partitionedMemberScan.progress("reset").getPartitions()).isZero();
+  }
+
+  @Test
+  public void concurrentRunOfSameJobFailsFast() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<ScanProgress> running = CompletableFuture.supplyAsync(() ->
+            partitionedMemberScan.scan("busy", 1, MEMBERS, (scanEm, batch) -> {
+              started.countDown();
+              try {
+                release.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }));
+    try {
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+      long start = System.nanoTime();
+      assertThatThrownBy(() -> partitionedMemberScan.scan("busy", 1, MEMBERS, (scanEm, batch) -> { }))
+              .isInstanceOf(IllegalStateException.class);
+      assertThatThrownBy(() -> partitionedMemberScan.reset("busy"))
+              .isInstanceOf(IllegalStateException.class);
+      assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+      // 다른 jobName 은 막지 않는다.
+      assertThat(partitionedMemberScan.scan("other", 1, MEMBERS, (scanEm, batch) -> { }).isCompleted()).isTrue();
+    } finally {
+      release.countDown();
+    }
+
+    assertThat(running.get(10, TimeUnit.SECONDS).getProcessed()).isEqualTo(MEMBERS);
+    // 잠금이 풀린 뒤에는 다시 실행할 수 있다.
+    partitionedMemberScan.reset("busy");
+    assertThat(partitionedMemberScan.progress("busy").getPartitions()).isZero();
+  }
+
+  private List<Integer> ages() {
+    return transactionTemplate.execute(status -> queryFactory.select(member.age).from(member).fetch());
+  }
+}
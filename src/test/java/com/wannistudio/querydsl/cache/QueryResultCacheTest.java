@@ -0,0 +1,209 @@
+package com.wannistudio.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import com.wannistudio.querydsl.repository.MemberBulkRepository;
+import com.wannistudio.querydsl.repository.MemberBulkRepository.ContextSync;
+import com.wannistudio.querydsl.repository.MemberCachedQueryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 무효화는 트랜잭션이 끝날 때 일어나므로 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class QueryResultCacheTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  QueryCounter queryCounter;
+  @Autowired
+  QueryResultCache queryResultCache;
+  @Autowired
+  MemberCachedQueryRepository memberCachedQueryRepository;
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  Long teamAId;
+
+  @BeforeEach
+  public void before() {
+    transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      em.persist(new Member("member1", 10, teamA));
+      em.persist(new Member("member2", 20, teamA));
+      em.persist(new Member("member3", 30, teamB));
+      teamAId = teamA.getId();
+      return null;
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      em.createNativeQuery("delete from team_stats").executeUpdate();
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+    queryResultCache.invalidateAll();
+  }
+
+  @Test
+  public void sameShapeAndBindsHitCache() {
+    List<MemberDto> first = memberCachedQueryRepository.findByTeamName("teamA");
+    List<MemberDto> second = statements(0, () -> memberCachedQueryRepository.findByTeamName("teamA"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(second).extracting("username").containsExactly("member1", "member2");
+  }
+
+  @Test
+  public void differentBindsMissCache() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    List<MemberDto> teamB = statements(1, () -> memberCachedQueryRepository.findByTeamName("teamB"));
+
+    assertThat(teamB).extracting("username").containsExactly("member3");
+    assertThat(queryResultCache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void memberInsertInvalidates() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member4", 40, em.find(Team.class, teamAId)));
+      return null;
+    });
+
+    List<MemberDto> result = statements(1, () -> memberCachedQueryRepository.findByTeamName("teamA"));
+    assertThat(result).extracting("username").containsExactly("member1", "member2", "member4");
+  }
+
+  @Test
+  public void teamUpdateInvalidatesJoinedQuery() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    transactionTemplate.execute(status -> {
+      em.find(Team.class, teamAId).setName("teamC");
+      return null;
+    });
+
+    assertThat(memberCachedQueryRepository.findByTeamName("teamA")).isEmpty();
+    assertThat(memberCachedQueryRepository.findByTeamName("teamC")).hasSize(2);
+  }
+
+  @Test
+  public void unrelatedWriteKeepsEntry() {
+    queryResultCache.fetch(queryFactory.select(team.name).from(team).orderBy(team.name.asc()));
+
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member4", 40));
+      return null;
+    });
+
+    List<String> teamNames = statements(0, () -> queryResultCache.fetch(
+            queryFactory.select(team.name).from(team).orderBy(team.name.asc())));
+    assertThat(teamNames).containsExactly("teamA", "teamB");
+  }
+
+  @Test
+  public void tupleResultIsCachedAndInvalidated() {
+    memberCachedQueryRepository.countByTeam();
+    statements(0, () -> memberCachedQueryRepository.countByTeam());
+
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member4", 40, em.find(Team.class, teamAId)));
+      return null;
+    });
+
+    List<Tuple> result = memberCachedQueryRepository.countByTeam();
+    assertThat(result.get(0).get(team.name)).isEqualTo("teamA");
+    assertThat(result.get(0).get(member.count())).isEqualTo(3L);
+  }
+
+  @Test
+  public void uncommittedWritesBypassCache() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member4", 40, em.find(Team.class, teamAId)));
+      assertThat(memberCachedQueryRepository.findByTeamName("teamA")).hasSize(3);
+      status.setRollbackOnly();
+      return null;
+    });
+
+    assertThat(memberCachedQueryRepository.findByTeamName("teamA")).hasSize(2);
+  }
+
+  @Test
+  public void unflushedChangeBypassesCache() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    transactionTemplate.execute(status -> {
+      queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne().setAge(99);
+      assertThat(memberCachedQueryRepository.findByTeamName("teamA")).extracting("age").containsExactly(99, 20);
+      status.setRollbackOnly();
+      return null;
+    });
+  }
+
+  @Test
+  public void readWriteTransactionWithoutManagedEntitiesHitsCache() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    transactionTemplate.execute(status ->
+            statements(0, () -> memberCachedQueryRepository.findByTeamName("teamA")));
+  }
+
+  @Test
+  public void bulkUpdateInvalidatesAfterCommit() {
+    memberCachedQueryRepository.findByTeamName("teamA");
+
+    memberBulkRepository.addAgeByTeam(teamAId, 1, ContextSync.CLEAR);
+
+    assertThat(memberCachedQueryRepository.findByTeamName("teamA")).extracting("age").containsExactly(11, 21);
+  }
+
+  @Test
+  public void entityProjectionIsRejected() {
+    assertThatThrownBy(() -> queryResultCache.fetch(queryFactory.selectFrom(member)))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private <T> T statements(long expected, Supplier<T> query) {
+    long before = queryCounter.executedStatements();
+    T result = query.get();
+    assertThat(queryCounter.executedStatements() - before).isEqualTo(expected);
+    return result;
+  }
+}
@@ -0,0 +1,205 @@
+package com.wannistudio.querydsl.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.UserDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "querydsl.search.max-limit=500")
+@AutoConfigureMockMvc
+@Transactional
+class ColumnarHttpMessageConverterTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    for (int i = 0; i < 200; i++) {
+      em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+    }
+    em.persist(new Member("noTeam", 99));
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void columnarMatchesJsonAndIsSmaller() throws Exception {
+    byte[] json = mockMvc.perform(get("/members/search").param("limit", "500").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+    byte[] columnar = mockMvc.perform(get("/members/search").param("limit", "500")
+                    .accept(ColumnarHttpMessageConverter.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(ColumnarHttpMessageConverter.MEDIA_TYPE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+    List<MemberTeamDto> fromJson = objectMapper.readValue(json, new TypeReference<List<MemberTeamDto>>() {
+    });
+    List<MemberTeamDto> fromColumnar = ColumnarCodec.decode(DtoSchemas.MEMBER_TEAM, new ByteArrayInputStream(columnar));
+
+    assertThat(fromColumnar).hasSize(201).isEqualTo(fromJson);
+    assertThat(fromColumnar).filteredOn(dto -> dto.getTeamName() == null).extracting("username").containsExactly("noTeam");
+    assertThat(columnar.length).isLessThan(json.length / 3);
+  }
+
+  @Test
+  public void memberAndUserListsByTeam() throws Exception {
+    byte[] members = mockMvc.perform(get("/members/by-team").param("teamName", "teamA")
+                    .accept(ColumnarHttpMessageConverter.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+    byte[] users = mockMvc.perform(get("/members/users").param("teamName", "teamA")
+                    .accept(ColumnarHttpMessageConverter.MEDIA_TYPE))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+
+    List<MemberDto> memberDtos = ColumnarCodec.decode(DtoSchemas.MEMBER, new ByteArrayInputStream(members));
+    List<UserDto> userDtos = ColumnarCodec.decode(DtoSchemas.USER, new ByteArrayInputStream(users));
+    assertThat(memberDtos).hasSize(100);
+    assertThat(memberDtos.get(1)).isEqualTo(new MemberDto("member2", 2));
+    assertThat(userDtos).hasSize(100);
+    assertThat(userDtos.get(1)).isEqualTo(new UserDto("member2", 2));
+  }
+
+  @Test
+  public void jsonStaysDefault() throws Exception {
+    mockMvc.perform(get("/members/by-team").param("teamName", "teamB"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$[0].username").value("member1"));
+  }
+
+  @Test
+  public void nonListResponseIsNotAcceptable() throws Exception {
+    mockMvc.perform(get("/members/slice").accept(ColumnarHttpMessageConverter.MEDIA_TYPE))
+            .andExpect(status().isNotAcceptable());
+  }
+
+  @Test
+  public void roundTripsNullsUnicodeAndNegativeValues() throws IOException {
+    List<MemberTeamDto> rows = Arrays.asList(
+            new MemberTeamDto(5L, "김철수", -1, 1L, "팀A"),
+            new MemberTeamDto(3L, null, Integer.MIN_VALUE, null, null),
+            new MemberTeamDto(null, "", Integer.MAX_VALUE, 1L, "팀A"),
+            new MemberTeamDto(Long.MAX_VALUE, "emoji 😀", 0, Long.MIN_VALUE, "teamB"));
+
+    assertThat(roundTrip(DtoSchemas.MEMBER_TEAM, rows)).isEqualTo(rows);
+    assertThat(roundTrip(DtoSchemas.MEMBER_TEAM, Arrays.<MemberTeamDto>asList())).isEmpty();
+  }
+
+  @Test
+  public void rejectsCorruptOrMismatchedPayload() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarCodec.encode(DtoSchemas.MEMBER, Arrays.asList(new MemberDto("member1", 10)), out);
+    byte[] bytes = out.toByteArray();
+
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.USER, new ByteArrayInputStream(bytes)))
+            .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.MEMBER,
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))))
+            .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.MEMBER, new ByteArrayInputStream("[{}]".getBytes())))
+            .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void oversizedHeaderFailsWithoutPreallocating() throws IOException {
+    // 행 수와 문자열 길이를 Integer.MAX_VALUE 근처로 적은 수십 바이트짜리 본문
+    ByteArrayOutputStream rows = new ByteArrayOutputStream();
+    rows.write(new byte[]{'Q', 'C', 'O', 'L', 1});
+    writeVarint(rows, Integer.MAX_VALUE - 8);
+    writeColumns(rows);
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.MEMBER, new ByteArrayInputStream(rows.toByteArray())))
+            .isInstanceOf(EOFException.class);
+
+    ByteArrayOutputStream string = new ByteArrayOutputStream();
+    string.write(new byte[]{'Q', 'C', 'O', 'L', 1});
+    writeVarint(string, 1);
+    writeColumns(string);
+    string.write(0);
+    string.write(1);
+    writeVarint(string, Integer.MAX_VALUE - 8);
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.MEMBER, new ByteArrayInputStream(string.toByteArray())))
+            .isInstanceOf(EOFException.class);
+
+    ByteArrayOutputStream tooLarge = new ByteArrayOutputStream();
+    tooLarge.write(new byte[]{'Q', 'C', 'O', 'L', 1});
+    writeVarint(tooLarge, Long.MAX_VALUE);
+    assertThatThrownBy(() -> ColumnarCodec.decode(DtoSchemas.MEMBER, new ByteArrayInputStream(tooLarge.toByteArray())))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("행 수");
+  }
+
+  @Test
+  public void columnarRequestBodyIsNotRead() {
+    ColumnarHttpMessageConverter converter = new ColumnarHttpMessageConverter(DtoSchemas.all());
+    Type type = new TypeReference<List<MemberDto>>() {
+    }.getType();
+
+    assertThat(converter.canRead(type, null, ColumnarHttpMessageConverter.MEDIA_TYPE)).isFalse();
+    assertThat(converter.canWrite(type, List.class, ColumnarHttpMessageConverter.MEDIA_TYPE)).isTrue();
+  }
+
+  /**
+   * MemberDto 스키마의 컬럼 헤더(username STRING, age INT).
+   */
+  private void writeColumns(ByteArrayOutputStream out) throws IOException {
+    writeVarint(out, 2);
+    out.write(ColumnarSchema.Kind.STRING.code);
+    writeVarint(out, "username".length());
+    out.write("username".getBytes(StandardCharsets.UTF_8));
+    out.write(ColumnarSchema.Kind.INT.code);
+    writeVarint(out, "age".length());
+    out.write("age".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private <T> List<T> roundTrip(ColumnarSchema<T> schema, List<T> rows) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarCodec.encode(schema, rows, out);
+    return ColumnarCodec.decode(schema, new ByteArrayInputStream(out.toByteArray()));
+  }
+}
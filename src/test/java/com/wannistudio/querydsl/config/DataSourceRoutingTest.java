@@ -0,0 +1,115 @@
+package com.wannistudio.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.repository.MemberExportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 원본과 복제본을 서로 다른 H2 인스턴스로 띄운다. 복제는 없으므로 스키마만 원본에서 복사하고,
+ * 어느 쪽에서 읽었는지는 한쪽에만 있는 데이터로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.replica.url=jdbc:h2:mem:routing-replica;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.replica.username=sa"})
+class DataSourceRoutingTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  ReadWriteRoutingDataSource dataSource;
+  @Autowired
+  MemberExportRepository memberExportRepository;
+
+  JdbcTemplate primary;
+  JdbcTemplate replica;
+
+  @BeforeEach
+  public void before() {
+    primary = new JdbcTemplate(dataSource.getPrimary());
+    replica = new JdbcTemplate(dataSource.getReplica());
+    List<String> schema = primary.queryForList("script nodata drop", String.class);
+    for (String statement : schema) {
+      replica.execute(statement);
+    }
+    replica.update("insert into team (team_id, name) values (1000, 'replicaTeam')");
+    replica.update("insert into member (member_id, username, age, team_id) values (1000, 'replicaMember', 99, 1000)");
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void writeGoesToPrimary() {
+    transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      em.persist(new Member("member1", 10, teamA));
+      return null;
+    });
+
+    assertThat(primary.queryForObject("select count(*) from member", Long.class)).isEqualTo(1);
+    assertThat(replica.queryForObject("select count(*) from member where username = 'member1'", Long.class)).isZero();
+  }
+
+  @Test
+  public void readOnlyTransactionReadsReplica() {
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member1", 10));
+      return null;
+    });
+
+    TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    readOnly.setReadOnly(true);
+    List<String> fromReplica = readOnly.execute(status -> queryFactory
+            .select(member.username)
+            .from(member)
+            .fetch());
+    List<String> fromPrimary = transactionTemplate.execute(status -> queryFactory
+            .select(member.username)
+            .from(member)
+            .fetch());
+
+    assertThat(fromReplica).containsExactly("replicaMember");
+    assertThat(fromPrimary).containsExactly("member1");
+  }
+
+  @Test
+  public void readOnlyRepositoryMethodReadsReplica() {
+    List<MemberDto> exported = new ArrayList<>();
+    memberExportRepository.exportMembers(exported::add);
+
+    assertThat(exported).extracting("username").containsExactly("replicaMember");
+  }
+}
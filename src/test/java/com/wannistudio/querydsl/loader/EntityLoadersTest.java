@@ -0,0 +1,142 @@
+package com.wannistudio.querydsl.loader;
+
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class EntityLoadersTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  QueryCounter queryCounter;
+
+  Long member1Id;
+  Long member2Id;
+  Long member3Id;
+  Long member4Id;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40);
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+    em.flush();
+    em.clear();
+    member1Id = member1.getId();
+    member2Id = member2.getId();
+    member3Id = member3.getId();
+    member4Id = member4.getId();
+  }
+
+  @Test
+  public void membersByIdsRunsOneQueryPerEntityType() throws Exception {
+    long before = queryCounter.executedStatements();
+
+    mockMvc.perform(get("/members/by-ids")
+                    .param("ids", String.valueOf(member3Id), String.valueOf(member1Id), "999999",
+                            String.valueOf(member4Id), String.valueOf(member1Id), String.valueOf(member2Id)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].username", contains("member3", "member1", "member4", "member1", "member2")))
+            .andExpect(jsonPath("$[*].teamName", contains("teamB", "teamA", null, "teamA", "teamA")));
+
+    // 회원 in 쿼리 1번 + 팀 in 쿼리 1번
+    assertThat(queryCounter.executedStatements() - before).isEqualTo(2);
+  }
+
+  @Test
+  public void batchLoaderDedupesCachesAndSplits() {
+    List<List<Long>> batches = new ArrayList<>();
+    BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+      batches.add(new ArrayList<>(ids));
+      Map<Long, String> values = new HashMap<>();
+      ids.stream().filter(id -> id < 100).forEach(id -> values.put(id, "value" + id));
+      return values;
+    }, 2);
+
+    CompletableFuture<String> first = loader.load(1L);
+    CompletableFuture<List<String>> many = loader.loadMany(Arrays.asList(2L, 1L, 3L, 100L));
+    loader.dispatch();
+
+    assertThat(first.join()).isEqualTo("value1");
+    assertThat(many.join()).containsExactly("value2", "value1", "value3", null);
+    assertThat(batches).containsExactly(Arrays.asList(1L, 2L), Arrays.asList(3L, 100L));
+
+    // 이미 조회한 키는 null 결과까지 다시 조회하지 않는다.
+    assertThat(loader.getAll(Arrays.asList(3L, 100L, 4L))).containsExactly("value3", null, "value4");
+    assertThat(batches).hasSize(3);
+    assertThat(batches.get(2)).containsExactly(4L);
+  }
+
+  @Test
+  public void chainedLoadsAreDispatchedInNextRound() {
+    List<List<Long>> batches = new ArrayList<>();
+    BatchLoader<Long, Long> loader = new BatchLoader<>(ids -> {
+      batches.add(new ArrayList<>(ids));
+      Map<Long, Long> parents = new HashMap<>();
+      ids.forEach(id -> parents.put(id, id / 10));
+      return parents;
+    }, 100);
+
+    CompletableFuture<Long> grandParent = loader.load(123L).thenCompose(loader::load);
+    CompletableFuture<Long> other = loader.load(124L).thenCompose(loader::load);
+    loader.dispatch();
+
+    assertThat(grandParent.join()).isEqualTo(1L);
+    assertThat(other.join()).isEqualTo(1L);
+    assertThat(batches).containsExactly(Arrays.asList(123L, 124L), Arrays.asList(12L));
+  }
+
+  @Test
+  public void failedBatchCanBeRetried() {
+    int[] calls = {0};
+    BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+      if (calls[0]++ == 0) {
+        throw new IllegalStateException("db down");
+      }
+      Map<Long, String> values = new HashMap<>();
+      ids.forEach(id -> values.put(id, "value" + id));
+      return values;
+    }, 100);
+
+    assertThatThrownBy(() -> loader.get(1L))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("db down");
+    assertThat(loader.get(1L)).isEqualTo("value1");
+  }
+}
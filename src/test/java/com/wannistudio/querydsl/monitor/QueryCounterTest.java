@@ -0,0 +1,106 @@
+package com.wannistudio.querydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+// 프로퍼티가 달라 컨텍스트가 따로 뜨므로, ddl-auto 가 다른 컨텍스트의 스키마와 시퀀스를 다시 만들지 않도록 DB 를 분리한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-counter;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        // 배치 페칭을 끄고 지연 로딩이 하나씩 일어나는 상황을 재현한다.
+        "querydsl.fetch.batch-size=1",
+        "querydsl.query-budget.strict=true",
+        "querydsl.query-budget.n-plus-one-threshold=2",
+        "querydsl.query-budget.max-statements=5"})
+@Transactional
+class QueryCounterTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  QueryCounter queryCounter;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void lazyMemberTeamIsReportedAsNPlusOne() {
+    assertThatThrownBy(() -> {
+      try (QueryScope ignored = queryCounter.open("member.team")) {
+        List<Member> members = queryFactory.selectFrom(member).fetch();
+        for (Member m : members) {
+          m.getTeam().getName();
+        }
+      }
+    }).isInstanceOf(QueryBudgetExceededException.class)
+            .hasMessageContaining("N+1 on " + Team.class.getName());
+  }
+
+  @Test
+  public void lazyTeamMembersIsReportedAsNPlusOne() {
+    assertThatThrownBy(() -> {
+      try (QueryScope ignored = queryCounter.open("team.members")) {
+        List<Team> teams = queryFactory.selectFrom(team).fetch();
+        for (Team t : teams) {
+          t.getMembers().size();
+        }
+      }
+    }).isInstanceOf(QueryBudgetExceededException.class)
+            .hasMessageContaining("N+1 on " + Team.class.getName() + ".members");
+  }
+
+  @Test
+  public void fetchJoinStaysWithinBudget() {
+    try (QueryScope scope = queryCounter.open("fetch join")) {
+      List<Member> members = queryFactory
+              .selectFrom(member)
+              .join(member.team, team).fetchJoin()
+              .fetch();
+      for (Member m : members) {
+        m.getTeam().getName();
+      }
+
+      assertThat(scope.getStatements()).isEqualTo(1);
+      assertThat(scope.getLazyLoads()).isEmpty();
+    }
+  }
+
+  @Test
+  public void statementBudget() {
+    assertThatThrownBy(() -> {
+      try (QueryScope ignored = queryCounter.open("budget")) {
+        for (int i = 0; i < 6; i++) {
+          queryFactory.selectFrom(member).where(member.age.eq(i)).fetch();
+        }
+      }
+    }).isInstanceOf(QueryBudgetExceededException.class)
+            .hasMessageContaining("6 statements");
+  }
+}
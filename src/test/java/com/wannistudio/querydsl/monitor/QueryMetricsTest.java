@@ -0,0 +1,103 @@
+package com.wannistudio.querydsl.monitor;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.repository.MemberPagingRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-metrics;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        // 모든 쿼리를 느린 쿼리로 보고 빠짐없이 로그를 남긴다.
+        "querydsl.metrics.slow-query-threshold=0ms",
+        "querydsl.metrics.slow-query-sample-rate=1.0"})
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class QueryMetricsTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  MeterRegistry registry;
+  @Autowired
+  QueryShapesEndpoint queryShapesEndpoint;
+  @Autowired
+  MemberPagingRepository memberPagingRepository;
+
+  @BeforeEach
+  public void before() {
+    registry.clear();
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 1; i <= 3; i++) {
+      em.persist(new Member("member" + i, i * 10, teamA));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void repositoryQueriesAreTaggedWithMethod() {
+    memberPagingRepository.searchPage(PageRequest.of(0, 2));
+
+    Collection<Timer> timers = registry.find("querydsl.query").tag("method", "MemberPagingRepository.searchPage").timers();
+    // 목록 쿼리와 count 쿼리는 형태가 다르므로 따로 집계된다.
+    assertThat(timers).hasSize(2);
+    assertThat(timers).allSatisfy(timer -> assertThat(timer.count()).isEqualTo(1));
+    assertThat(registry.find("querydsl.query.rows").tag("method", "MemberPagingRepository.searchPage")
+            .summaries()).extracting(DistributionSummary::totalAmount).containsExactlyInAnyOrder(2.0, 1.0);
+  }
+
+  @Test
+  public void parallelCountKeepsCallingMethod() {
+    memberPagingRepository.searchPageWithParallelCount(PageRequest.of(0, 2));
+
+    assertThat(registry.find("querydsl.query").tag("method", "MemberPagingRepository.searchPageWithParallelCount")
+            .timers()).hasSize(2);
+  }
+
+  @Test
+  public void statementsIncludeAutoFlush() {
+    em.persist(new Member("member4", 40));
+
+    List<Member> result = queryFactory.selectFrom(member).fetch();
+
+    String shape = QueryMetrics.shapeId("select member1\nfrom Member member1");
+    assertThat(result).hasSize(4);
+    assertThat(registry.get("querydsl.query.statements").tag("method", QueryMetrics.UNKNOWN_CALLER).tag("query", shape)
+            .summary().totalAmount()).isEqualTo(2);
+    assertThat(queryShapesEndpoint.shapes()).containsEntry(shape, "select member1\nfrom Member member1");
+  }
+
+  @Test
+  public void slowQueryLogIncludesBinds(CapturedOutput output) {
+    queryFactory
+            .selectFrom(member)
+            .join(member.team, team)
+            .where(team.name.eq("teamA"), member.age.goe(20))
+            .fetch();
+
+    assertThat(output).contains("slow query", "rows=2", "binds={1=teamA, 2=20}");
+  }
+}
@@ -0,0 +1,201 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.entity.TeamStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 비동기 조회는 별도 트랜잭션에서 실행되어 커밋된 데이터만 보므로 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class AsyncQueryExecutorTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  AsyncQueryExecutor asyncQueryExecutor;
+  @Autowired
+  MemberAsyncRepository memberAsyncRepository;
+  @Autowired
+  MemberPagingRepository memberPagingRepository;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  Long teamAId;
+
+  @BeforeEach
+  public void before() {
+    teamAId = transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      for (int i = 1; i <= 3; i++) {
+        em.persist(new Member("member" + i, i * 10, teamA));
+      }
+      return teamA.getId();
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      em.createNativeQuery("delete from team_stats").executeUpdate();
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void queriesRunConcurrently() throws Exception {
+    // 순서대로 실행된다면 첫 작업이 두 번째 작업을 기다리다 시간 초과된다.
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    CompletableFuture<Boolean> first = asyncQueryExecutor.submit(queryFactory -> awaitOther(bothStarted));
+    CompletableFuture<Boolean> second = asyncQueryExecutor.submit(queryFactory -> awaitOther(bothStarted));
+
+    assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(second.get(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void eachQueryHasItsOwnReadOnlyTransaction() throws Exception {
+    CompletableFuture<EntityManager> first = asyncQueryExecutor.submit(queryFactory -> currentEntityManager());
+    CompletableFuture<EntityManager> second = asyncQueryExecutor.submit(queryFactory -> currentEntityManager());
+    AsyncQueryExecutor.awaitAll(first, second);
+
+    assertThat(first.get()).isNotSameAs(second.get());
+  }
+
+  @Test
+  public void facadeCombinesIndependentQueries() {
+    CompletableFuture<Page<MemberTeamDto>> page = memberAsyncRepository.searchPage(PageRequest.of(0, 2));
+    CompletableFuture<TeamStats> stats = memberAsyncRepository.teamStats(teamAId);
+    CompletableFuture<Long> count = memberAsyncRepository.count();
+    AsyncQueryExecutor.awaitAll(page, stats, count);
+
+    assertThat(page.join().getContent()).extracting("username").containsExactly("member1", "member2");
+    assertThat(page.join().getTotalElements()).isEqualTo(3);
+    assertThat(stats.join().getMemberCount()).isEqualTo(3);
+    assertThat(count.join()).isEqualTo(3);
+  }
+
+  @Test
+  public void failureCompletesFutureExceptionally() {
+    CompletableFuture<Object> failed = asyncQueryExecutor.submit(queryFactory -> {
+      throw new IllegalStateException("boom");
+    });
+
+    assertThatThrownBy(failed::get)
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void rejectsBeyondConcurrencyPlusQueueCapacity() throws Exception {
+    AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 1, 1, true);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Boolean> running = executor.submit(queryFactory -> await(release));
+      CompletableFuture<Boolean> queued = executor.submit(queryFactory -> await(release));
+      CompletableFuture<Boolean> rejected = executor.submit(queryFactory -> await(release));
+
+      assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS))
+              .isInstanceOf(ExecutionException.class)
+              .hasCauseInstanceOf(RejectedExecutionException.class);
+
+      release.countDown();
+      assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+      // 끝난 작업의 자리는 다시 쓸 수 있다.
+      assertThat(executor.submit(queryFactory -> true).get(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      release.countDown();
+      executor.destroy();
+    }
+  }
+
+  @Test
+  public void parallelCountRunsOnExecutor() {
+    Page<MemberTeamDto> page = memberPagingRepository.searchPageWithParallelCount(PageRequest.of(0, 2));
+
+    assertThat(page.getContent()).extracting("username").containsExactly("member1", "member2");
+    assertThat(page.getTotalElements()).isEqualTo(3);
+  }
+
+  @Test
+  public void parallelCountFallsBackToCallerWhenRejected() throws Exception {
+    AsyncQueryExecutor executor = new AsyncQueryExecutor(queryFactory, transactionManager, 1, 1, true);
+    QuerydslPagingSupport pagingSupport = new QuerydslPagingSupport(em, executor, Duration.ofSeconds(30));
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Boolean> running = executor.submit(queryFactory -> await(release));
+      CompletableFuture<Boolean> queued = executor.submit(queryFactory -> await(release));
+
+      Page<String> page = transactionTemplate.execute(status -> pagingSupport.pageWithParallelCount(
+              queryFactory.select(member.username).from(member).orderBy(member.id.asc()),
+              queryFactory.select(member.count()).from(member),
+              PageRequest.of(0, 2)));
+
+      assertThat(page.getTotalElements()).isEqualTo(3);
+      release.countDown();
+      AsyncQueryExecutor.awaitAll(running, queued);
+    } finally {
+      release.countDown();
+      executor.destroy();
+    }
+  }
+
+  private boolean await(CountDownLatch release) {
+    try {
+      return release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private boolean awaitOther(CountDownLatch bothStarted) {
+    bothStarted.countDown();
+    try {
+      return bothStarted.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private EntityManager currentEntityManager() {
+    assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+    return EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+  }
+}
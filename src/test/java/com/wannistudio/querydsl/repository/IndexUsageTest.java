@@ -0,0 +1,250 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import com.wannistudio.querydsl.monitor.QueryScope;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 리포지토리 쿼리가 실제로 실행한 SQL 을 모아 H2 EXPLAIN 으로 실행 계획을 확인한다.
+ * 엔티티에 선언한 인덱스가 ddl-auto 로 생성되고 자주 쓰는 조건에서 선택되는지 검증한다.
+ *
+ * "index sorted" 는 정렬을 인덱스 순서로 대신했다는 뜻이다. H2 1.4 는 인덱스를 역방향으로 읽지 못하므로
+ * 내림차순(키셋 이전 페이지)은 인덱스 범위만 확인한다. MySQL 8 은 같은 인덱스를 역방향으로 읽는다.
+ */
+@Slf4j
+// H2 의 ANALYZE 는 트랜잭션을 커밋하므로 데이터는 이 테스트 전용 DB 에 한 번만 넣고, 쓰기 쿼리는 롤백한다.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:index-usage;MODE=MYSQL;DB_CLOSE_DELAY=-1")
+class IndexUsageTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  QueryCounter queryCounter;
+  @Autowired
+  MemberSearchRepository memberSearchRepository;
+  @Autowired
+  TeamRepository teamRepository;
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+  @Autowired
+  MemberKeysetRepository memberKeysetRepository;
+  @Autowired
+  MemberPagingRepository memberPagingRepository;
+  @Autowired
+  MemberExportRepository memberExportRepository;
+  @Autowired
+  MemberStreamRepository memberStreamRepository;
+  @Autowired
+  MemberWindowQueryRepository memberWindowQueryRepository;
+
+  static final int TEAMS = 50;
+  static final int MEMBERS = 2000;
+
+  Long teamId;
+
+  @BeforeEach
+  public void before() {
+    teamId = transactionTemplate.execute(status -> {
+      Long existing = queryFactory.select(team.id.min()).from(team).fetchOne();
+      if (existing != null) {
+        return existing;
+      }
+
+      List<Team> teams = new ArrayList<>();
+      for (int i = 0; i < TEAMS; i++) {
+        Team t = new Team("team" + i);
+        em.persist(t);
+        teams.add(t);
+      }
+      for (int i = 0; i < MEMBERS; i++) {
+        em.persist(new Member("member" + i, i % 100, teams.get(i % TEAMS)));
+      }
+      em.flush();
+      // 선택도를 계산할 수 있도록 통계를 갱신한다.
+      em.createNativeQuery("analyze").executeUpdate();
+      return teams.get(0).getId();
+    });
+  }
+
+  @Test
+  public void searchByUsernameUsesUsernameIndex() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member1");
+
+    assertThat(plans(() -> memberSearchRepository.search(condition)))
+            .anySatisfy(plan -> assertThat(plan).contains("IDX_MEMBER_USERNAME_ID"));
+  }
+
+  @Test
+  public void searchByAgeRangeUsesAgeIndex() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(30);
+    condition.setAgeLoe(40);
+
+    assertThat(plans(() -> memberSearchRepository.search(condition)))
+            .anySatisfy(plan -> assertThat(plan).contains("IDX_MEMBER_AGE_ID"));
+  }
+
+  @Test
+  public void searchByTeamNameUsesTeamNameIndex() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("team1");
+
+    assertThat(plans(() -> memberSearchRepository.search(condition)))
+            .anySatisfy(plan -> assertThat(plan).contains("IDX_TEAM_NAME"));
+  }
+
+  @Test
+  public void searchByTeamNameAndAgeUsesTeamAgeIndex() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("team1");
+    condition.setAgeGoe(30);
+
+    assertThat(plans(() -> memberSearchRepository.search(condition)))
+            .anySatisfy(plan -> assertThat(plan).contains("IDX_TEAM_NAME", "IDX_MEMBER_TEAM_AGE"));
+  }
+
+  @Test
+  public void findTeamByNameUsesTeamNameIndex() {
+    assertThat(plans(() -> teamRepository.findByName("team1")))
+            .anySatisfy(plan -> assertThat(plan).contains("IDX_TEAM_NAME"));
+  }
+
+  @Test
+  public void bulkUpdateByTeamDoesNotScanMembers() {
+    // team_id 만 쓰는 조건은 H2 가 외래 키 인덱스와 (team_id, age) 중 하나를 고른다.
+    assertThat(plans(() -> memberBulkRepository.addAgeByTeam(teamId, 1, MemberBulkRepository.ContextSync.CLEAR)))
+            .filteredOn(plan -> plan.startsWith("UPDATE"))
+            .isNotEmpty()
+            .allSatisfy(plan -> assertThat(plan).doesNotContain("tableScan"));
+  }
+
+  @Test
+  public void keysetByUsernameReadsIndexInOrder() {
+    assertKeysetPlans(MemberSortKey.USERNAME, "IDX_MEMBER_USERNAME_ID", "USERNAME");
+  }
+
+  @Test
+  public void keysetByAgeReadsIndexInOrder() {
+    assertKeysetPlans(MemberSortKey.AGE, "IDX_MEMBER_AGE_ID", "AGE");
+  }
+
+  @Test
+  public void pagingContentReadsPrimaryKeyInOrder() {
+    assertThat(plans(() -> memberPagingRepository.searchPage(PageRequest.of(3, 20))))
+            .anySatisfy(plan -> assertThat(plan).contains("TEAM_ID = MEMBER0_.TEAM_ID", "index sorted"));
+  }
+
+  @Test
+  public void exportReadsPrimaryKeyInOrder() {
+    assertThat(plans(() -> memberExportRepository.exportMembers(dto -> {
+    })))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan).contains("PRIMARY_KEY", "index sorted"));
+  }
+
+  @Test
+  public void streamPageSeeksPrimaryKey() {
+    assertThat(plans(() -> memberStreamRepository.pages(new MemberSearchCondition(), 100L).next()))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan).contains("MEMBER_ID > ?1", "index sorted"));
+  }
+
+  @Test
+  public void windowQueriesScanMembersOnce() {
+    // 전체 집계이므로 인덱스 대신 회원 테이블을 한 번만 읽는지(상관 서브쿼리가 없는지) 확인한다.
+    assertThat(plans(() -> {
+      memberWindowQueryRepository.findOldest();
+      memberWindowQueryRepository.findOldestPerTeam();
+      memberWindowQueryRepository.findAtLeastAverageAge();
+      memberWindowQueryRepository.findAtLeastTeamAverageAge();
+      memberWindowQueryRepository.findTopPerTeam(2);
+    }))
+            .hasSize(5)
+            .allSatisfy(plan -> assertThat(plan.split("MEMBER.tableScan", -1)).hasSize(2));
+  }
+
+  @Test
+  public void teamsWithOlderMemberProbesTeamAgeIndex() {
+    assertThat(plans(() -> memberWindowQueryRepository.findMembersOfTeamsWithMemberOlderThan(98)))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan)
+                    .contains("EXISTS", "IDX_MEMBER_TEAM_AGE")
+                    .doesNotContain("DISTINCT"));
+  }
+
+  private void assertKeysetPlans(MemberSortKey sortKey, String index, String column) {
+    KeysetPage<MemberDto> first = memberKeysetRepository.findFirstPage(sortKey, 10);
+    KeysetPage<MemberDto> second = memberKeysetRepository.findPage(KeysetCursor.decode(first.getNextCursor()), 10);
+
+    assertThat(plans(() -> memberKeysetRepository.findFirstPage(sortKey, 10)))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan).contains(index, "index sorted"));
+    assertThat(plans(() -> memberKeysetRepository.findPage(KeysetCursor.decode(first.getNextCursor()), 10)))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan).contains(index + ": " + column + " >= ?1", "index sorted"));
+    assertThat(plans(() -> memberKeysetRepository.findPage(KeysetCursor.decode(second.getPreviousCursor()), 10)))
+            .singleElement()
+            .satisfies(plan -> assertThat(plan).contains(index + ": " + column + " <= ?1"));
+  }
+
+  /**
+   * action 이 실행한 select / update / delete 마다 EXPLAIN 결과를 돌려준다. 바인드 값 없이도 H2 는 계획을 세운다.
+   */
+  private List<String> plans(Runnable action) {
+    return transactionTemplate.execute(status -> {
+      status.setRollbackOnly();
+      List<String> sql;
+      try (QueryScope scope = queryCounter.openRecording("explain")) {
+        action.run();
+        sql = new ArrayList<>(scope.getSql());
+      }
+      return explain(sql);
+    });
+  }
+
+  private List<String> explain(List<String> sql) {
+    List<String> plans = new ArrayList<>();
+    em.unwrap(Session.class).doWork(connection -> {
+      for (String statement : sql) {
+        String lower = statement.trim().toLowerCase(Locale.ROOT);
+        if (!(lower.startsWith("select") || lower.startsWith("update") || lower.startsWith("delete"))) {
+          continue;
+        }
+        try (PreparedStatement explain = connection.prepareStatement("explain " + statement);
+             ResultSet rs = explain.executeQuery()) {
+          rs.next();
+          plans.add(rs.getString(1));
+        }
+      }
+    });
+    plans.forEach(plan -> log.info("plan:\n{}", plan));
+    return plans;
+  }
+}
@@ -0,0 +1,125 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.AgeBucket;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import com.wannistudio.querydsl.monitor.QueryScope;
+import com.wannistudio.querydsl.repository.MemberBulkRepository.ContextSync;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+  @Autowired
+  QueryCounter queryCounter;
+  @Value("${querydsl.batch.size}")
+  int batchSize;
+
+  Team teamA;
+  Member member1;
+  Member member2;
+  Member member3;
+
+  @BeforeEach
+  public void before() {
+    teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    member1 = new Member("member1", 10, teamA);
+    member2 = new Member("member2", 20, teamA);
+    member3 = new Member("member3", 30, teamB);
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+  }
+
+  @Test
+  public void addAgeWithClear() {
+    long count = memberBulkRepository.addAgeByTeam(teamA.getId(), 1, ContextSync.CLEAR);
+
+    assertThat(count).isEqualTo(2);
+    assertThat(em.contains(member1)).isFalse();
+    Member findMember = queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne();
+    assertThat(findMember.getAge()).isEqualTo(11);
+  }
+
+  @Test
+  public void addAgeRecomputesDerivedColumns() {
+    memberBulkRepository.addAgeByTeam(teamA.getId(), 1, ContextSync.CLEAR);
+
+    Member findMember = queryFactory.selectFrom(member).where(member.username.eq("member2")).fetchOne();
+    assertThat(findMember.getAgeBucket()).isEqualTo(AgeBucket.AGE_21_30);
+    assertThat(findMember.getDisplayKey()).isEqualTo("member2_21");
+  }
+
+  @Test
+  public void addAgeRefreshesOnlyAffected() {
+    member3.setUsername("member3-renamed");
+
+    long count = memberBulkRepository.addAgeByTeam(teamA.getId(), 1, ContextSync.EVICT_AFFECTED);
+
+    assertThat(count).isEqualTo(2);
+    assertThat(member1.getAge()).isEqualTo(11);
+    assertThat(member2.getAge()).isEqualTo(21);
+    assertThat(member3.getAge()).isEqualTo(30);
+    assertThat(em.contains(member3)).isTrue();
+    assertThat(member3.getUsername()).isEqualTo("member3-renamed");
+  }
+
+  @Test
+  public void affectedLookupIsChunkedByBatchSize() {
+    for (int i = 0; i < batchSize * 2; i++) {
+      em.persist(new Member("bulk" + i, 40, teamA));
+    }
+
+    List<String> sql;
+    try (QueryScope scope = queryCounter.openRecording("bulk")) {
+      memberBulkRepository.deleteByAgeBetween(35, 45, ContextSync.EVICT_AFFECTED);
+      sql = scope.getSql();
+    }
+
+    // 관리 중인 회원 batchSize * 2 + 3 명 -> in 절 조회 3 번
+    List<String> lookups = sql.stream()
+            .filter(s -> s.startsWith("select") && s.contains(" in ("))
+            .collect(Collectors.toList());
+    assertThat(lookups).hasSize(3);
+    assertThat(lookups).allSatisfy(s -> assertThat(s.chars().filter(c -> c == '?').count()).isLessThanOrEqualTo(batchSize + 2));
+    assertThat(em.contains(member1)).isTrue();
+    assertThat(queryFactory.selectFrom(member).where(member.age.eq(40)).fetch()).isEmpty();
+  }
+
+  @Test
+  public void deleteEvictsAffected() {
+    long count = memberBulkRepository.deleteByAgeBetween(15, 35, ContextSync.EVICT_AFFECTED);
+
+    assertThat(count).isEqualTo(2);
+    assertThat(em.contains(member1)).isTrue();
+    assertThat(em.contains(member2)).isFalse();
+    assertThat(em.contains(member3)).isFalse();
+    assertThat(teamA.getMembers()).containsExactly(member1);
+    assertThat(queryFactory.selectFrom(member).fetch()).containsExactly(member1);
+  }
+}
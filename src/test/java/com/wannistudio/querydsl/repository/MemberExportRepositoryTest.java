@@ -0,0 +1,44 @@
+package com.wannistudio.querydsl.repository;
+
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-export;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        "querydsl.export.clear-interval=2"})
+@Transactional
+class MemberExportRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  MemberExportRepository memberExportRepository;
+
+  @Test
+  public void exportStreamsAllMembersInIdOrder() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 1; i <= 5; i++) {
+      em.persist(new Member("member" + i, i * 10, teamA));
+    }
+    em.flush();
+
+    List<MemberDto> exported = new ArrayList<>();
+    long count = memberExportRepository.exportMembers(exported::add);
+
+    assertThat(count).isEqualTo(5);
+    assertThat(exported).extracting("username")
+            .containsExactly("member1", "member2", "member3", "member4", "member5");
+  }
+}
@@ -0,0 +1,82 @@
+package com.wannistudio.querydsl.repository;
+
+import com.wannistudio.querydsl.dto.MemberDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  MemberKeysetRepository memberKeysetRepository;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 20, teamB));
+    em.persist(new Member("member4", 40, teamB));
+    em.persist(new Member("member5", 50, teamB));
+  }
+
+  @Test
+  public void forwardByUsername() {
+    KeysetPage<MemberDto> first = memberKeysetRepository.findFirstPage(MemberSortKey.USERNAME, 2);
+    assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+    assertThat(first.hasPrevious()).isFalse();
+
+    KeysetPage<MemberDto> second = memberKeysetRepository.findPage(KeysetCursor.decode(first.getNextCursor()), 2);
+    assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+    assertThat(second.hasPrevious()).isTrue();
+
+    KeysetPage<MemberDto> last = memberKeysetRepository.findPage(KeysetCursor.decode(second.getNextCursor()), 2);
+    assertThat(last.getContent()).extracting("username").containsExactly("member5");
+    assertThat(last.hasNext()).isFalse();
+  }
+
+  @Test
+  public void backwardByUsername() {
+    KeysetPage<MemberDto> first = memberKeysetRepository.findFirstPage(MemberSortKey.USERNAME, 2);
+    KeysetPage<MemberDto> second = memberKeysetRepository.findPage(KeysetCursor.decode(first.getNextCursor()), 2);
+
+    KeysetPage<MemberDto> back = memberKeysetRepository.findPage(KeysetCursor.decode(second.getPreviousCursor()), 2);
+    assertThat(back.getContent()).extracting("username").containsExactly("member1", "member2");
+    assertThat(back.hasPrevious()).isFalse();
+    assertThat(back.hasNext()).isTrue();
+  }
+
+  /**
+   * 같은 나이(20)의 회원이 페이지 경계에 걸쳐도 id 로 순서가 고정되어 누락이나 중복이 없어야 한다.
+   */
+  @Test
+  public void ageTieBreaksOnId() {
+    KeysetPage<MemberDto> first = memberKeysetRepository.findFirstPage(MemberSortKey.AGE, 2);
+    assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+
+    KeysetPage<MemberDto> second = memberKeysetRepository.findPage(KeysetCursor.decode(first.getNextCursor()), 2);
+    assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+  }
+
+  @Test
+  public void invalidCursor() {
+    assertThatThrownBy(() -> KeysetCursor.decode("not-a-cursor"))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,101 @@
+package com.wannistudio.querydsl.repository;
+
+import com.wannistudio.querydsl.dto.MemberSearchCondition;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberSearchRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  MemberSearchRepository memberSearchRepository;
+  @Autowired
+  MockMvc mockMvc;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+  }
+
+  @Test
+  public void searchTest() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(35);
+    condition.setAgeLoe(40);
+    condition.setTeamName("teamB");
+
+    List<MemberTeamDto> result = memberSearchRepository.search(condition);
+
+    assertThat(result).extracting("username").containsExactly("member4");
+    assertThat(result).isEqualTo(memberSearchRepository.searchUncached(condition));
+  }
+
+  @Test
+  public void emptyConditionReturnsAll() {
+    List<MemberTeamDto> result = memberSearchRepository.search(new MemberSearchCondition());
+
+    assertThat(result).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+  }
+
+  @Test
+  public void limitBoundsEmptyCondition() {
+    List<MemberTeamDto> result = memberSearchRepository.search(new MemberSearchCondition(), 2);
+
+    assertThat(result).extracting("username").containsExactly("member1", "member2");
+  }
+
+  @Test
+  public void endpointLimitIsBounded() throws Exception {
+    mockMvc.perform(get("/members/search").param("limit", "0"))
+            .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/members/search").param("limit", "101"))
+            .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/members/search").param("limit", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3));
+  }
+
+  @Test
+  public void sameShapeReusesCompiledQuery() {
+    MemberSearchCondition teamA = new MemberSearchCondition();
+    teamA.setTeamName("teamA");
+    MemberSearchCondition teamB = new MemberSearchCondition();
+    teamB.setTeamName("teamB");
+
+    List<MemberTeamDto> resultA = memberSearchRepository.search(teamA);
+    int shapes = memberSearchRepository.compiledShapes();
+    List<MemberTeamDto> resultB = memberSearchRepository.search(teamB);
+
+    assertThat(resultA).extracting("username").containsExactly("member1", "member2");
+    assertThat(resultB).extracting("username").containsExactly("member3", "member4");
+    assertThat(memberSearchRepository.compiledShapes()).isEqualTo(shapes);
+  }
+}
@@ -0,0 +1,232 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.search.UsernameIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 색인은 커밋된 변경만 반영하므로 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberUsernameSearchRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  UsernameIndex usernameIndex;
+  @Autowired
+  MemberUsernameSearchRepository memberUsernameSearchRepository;
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  Long kimChulsooId;
+  Long parkKimchiId;
+
+  @BeforeEach
+  public void before() {
+    transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      Member kimChulsoo = new Member("kim_chulsoo", 10, teamA);
+      em.persist(kimChulsoo);
+      em.persist(new Member("Kim_Younghee", 20, teamA));
+      Member parkKimchi = new Member("park_kimchi", 30);
+      em.persist(parkKimchi);
+      em.persist(new Member("lee_minho", 40));
+      kimChulsooId = kimChulsoo.getId();
+      parkKimchiId = parkKimchi.getId();
+      return null;
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      em.createNativeQuery("delete from team_stats").executeUpdate();
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void prefixIgnoresCaseInUsernameOrder() {
+    assertThat(memberUsernameSearchRepository.searchByPrefix("KIM_", 10))
+            .extracting(MemberTeamDto::getUsername)
+            .containsExactly("kim_chulsoo", "Kim_Younghee");
+  }
+
+  @Test
+  public void containsInIdOrder() {
+    assertThat(memberUsernameSearchRepository.searchContaining("kim", 10))
+            .extracting(MemberTeamDto::getUsername)
+            .containsExactly("kim_chulsoo", "Kim_Younghee", "park_kimchi");
+    assertThat(memberUsernameSearchRepository.searchContaining("kimc", 10))
+            .extracting(MemberTeamDto::getUsername)
+            .containsExactly("park_kimchi");
+    assertThat(memberUsernameSearchRepository.searchContaining("kimz", 10)).isEmpty();
+  }
+
+  @Test
+  public void shortQueryScansAndLimit() {
+    assertThat(memberUsernameSearchRepository.searchContaining("ki", 2))
+            .extracting(MemberTeamDto::getUsername)
+            .containsExactly("kim_chulsoo", "Kim_Younghee");
+  }
+
+  @Test
+  public void containsStopsAtLimitInIdOrder() {
+    assertThat(memberUsernameSearchRepository.searchContaining("kim", 2))
+            .extracting(MemberTeamDto::getUsername)
+            .containsExactly("kim_chulsoo", "Kim_Younghee");
+  }
+
+  @Test
+  public void nonPositiveLimitFindsNothing() {
+    assertThat(usernameIndex.idsByPrefix("kim", 0)).isEmpty();
+    assertThat(usernameIndex.idsByPrefix("kim", -1)).isEmpty();
+    assertThat(usernameIndex.idsContaining("kim", -1)).isEmpty();
+    assertThat(usernameIndex.idsContaining("ki", -1)).isEmpty();
+  }
+
+  @Test
+  public void limitOutOfRangeIsBadRequest() throws Exception {
+    mockMvc.perform(get("/members/username-search").param("q", "kim").param("limit", "-1"))
+            .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/members/username-search").param("q", "kim").param("limit", "101"))
+            .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/members/username-search").param("q", "kim").param("limit", "100"))
+            .andExpect(status().isOk());
+  }
+
+  @Test
+  public void hydratesTeam() {
+    MemberTeamDto result = memberUsernameSearchRepository.searchByPrefix("kim_c", 10).get(0);
+
+    assertThat(result.getMemberId()).isEqualTo(kimChulsooId);
+    assertThat(result.getAge()).isEqualTo(10);
+    assertThat(result.getTeamName()).isEqualTo("teamA");
+  }
+
+  @Test
+  public void usernameUpdateMovesEntry() {
+    transactionTemplate.execute(status -> {
+      em.find(Member.class, parkKimchiId).setUsername("park_bulgogi");
+      return null;
+    });
+
+    assertThat(memberUsernameSearchRepository.searchContaining("kimchi", 10)).isEmpty();
+    assertThat(memberUsernameSearchRepository.searchContaining("bulgogi", 10))
+            .extracting(MemberTeamDto::getMemberId)
+            .containsExactly(parkKimchiId);
+  }
+
+  @Test
+  public void deleteRemovesEntry() {
+    transactionTemplate.execute(status -> {
+      em.remove(em.find(Member.class, parkKimchiId));
+      return null;
+    });
+
+    assertThat(usernameIndex.idsContaining("kimchi", 10)).doesNotContain(parkKimchiId);
+  }
+
+  @Test
+  public void bulkDeletedMembersAreEvictedOnRead() {
+    transactionTemplate.execute(status -> queryFactory.delete(member)
+            .where(member.username.lower().startsWith("kim_"))
+            .execute());
+    assertThat(usernameIndex.idsByPrefix("kim_", 10)).contains(kimChulsooId);
+
+    assertThat(memberUsernameSearchRepository.searchContaining("kim", 10))
+            .extracting(MemberTeamDto::getMemberId)
+            .containsExactly(parkKimchiId);
+    assertThat(usernameIndex.idsByPrefix("kim_", 10)).isEmpty();
+  }
+
+  @Test
+  public void memberInvisibleToOldSnapshotIsSkippedNotEvicted() throws Exception {
+    // H2 1.4 는 REPEATABLE READ 에서도 새로 커밋된 행이 보이므로 SERIALIZABLE 로 스냅샷을 고정한다.
+    TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+    snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    snapshot.setReadOnly(true);
+
+    Long[] newId = new Long[1];
+    List<MemberTeamDto> found = snapshot.execute(status -> {
+      // 스냅샷을 연 뒤 다른 트랜잭션이 회원을 추가하고 커밋하면 색인에는 들어가지만 이 트랜잭션에서는 읽히지 않는다.
+      assertThat(queryFactory.selectFrom(member).fetch()).hasSize(4);
+      CompletableFuture.runAsync(() -> newId[0] = transactionTemplate.execute(inner -> {
+        Member kimNew = new Member("kim_new", 50);
+        em.persist(kimNew);
+        return kimNew.getId();
+      })).join();
+      assertThat(usernameIndex.idsByPrefix("kim_", 10)).contains(newId[0]);
+
+      return memberUsernameSearchRepository.searchByPrefix("kim_", 10);
+    });
+
+    assertThat(found).extracting(MemberTeamDto::getUsername).containsExactly("kim_chulsoo", "Kim_Younghee");
+    assertThat(usernameIndex.idsByPrefix("kim_new", 10)).containsExactly(newId[0]);
+    assertThat(memberUsernameSearchRepository.searchByPrefix("kim_new", 10))
+            .extracting(MemberTeamDto::getMemberId)
+            .containsExactly(newId[0]);
+  }
+
+  @Test
+  public void rolledBackInsertIsNotIndexed() {
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("kim_rollback", 50));
+      status.setRollbackOnly();
+      return null;
+    });
+
+    assertThat(usernameIndex.idsByPrefix("kim_rollback", 10)).isEmpty();
+  }
+
+  @Test
+  public void rebuildPicksUpNativeInserts() {
+    transactionTemplate.execute(status -> em.createNativeQuery(
+            "insert into member (member_id, username, age) values (900001, 'kim_native', 60)")
+            .executeUpdate());
+    assertThat(usernameIndex.idsByPrefix("kim_native", 10)).isEmpty();
+
+    usernameIndex.rebuild();
+
+    assertThat(memberUsernameSearchRepository.searchByPrefix("kim_native", 10))
+            .extracting(MemberTeamDto::getMemberId)
+            .containsExactly(900001L);
+  }
+}
@@ -0,0 +1,134 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.QMember;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberWindowQueryRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  MemberWindowQueryRepository memberWindowQueryRepository;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    Team teamC = new Team("teamC");
+    em.persist(teamA);
+    em.persist(teamB);
+    em.persist(teamC);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+    em.persist(new Member("member5", 40, teamB));
+    em.persist(new Member("member6", 5, teamC));
+    // 팀 없는 회원. 전체 평균(24.14...)보다 조금 작아 평균을 정수로 자르면 잘못 포함된다.
+    em.persist(new Member("member7", 24));
+    em.flush();
+  }
+
+  @Test
+  public void oldest() {
+    QMember memberSub = new QMember("memberSub");
+    List<Member> bySubQuery = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                    JPAExpressions
+                            .select(memberSub.age.max())
+                            .from(memberSub)))
+            .orderBy(member.id.asc())
+            .fetch();
+
+    assertThat(usernames(memberWindowQueryRepository.findOldest()))
+            .containsExactly("member4", "member5")
+            .containsExactlyElementsOf(bySubQuery.stream().map(Member::getUsername).collect(toList()));
+  }
+
+  @Test
+  public void oldestPerTeam() {
+    assertThat(usernames(memberWindowQueryRepository.findOldestPerTeam()))
+            .containsExactly("member2", "member4", "member5", "member6");
+  }
+
+  @Test
+  public void perTeamQueriesMatchCorrelatedSubqueries() {
+    QMember memberSub = new QMember("memberSub");
+    List<Member> oldestBySubQuery = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                    JPAExpressions
+                            .select(memberSub.age.max())
+                            .from(memberSub)
+                            .where(memberSub.team.eq(member.team))))
+            .orderBy(member.id.asc())
+            .fetch();
+    List<Member> atLeastAverageBySubQuery = queryFactory
+            .selectFrom(member)
+            .where(member.age.goe(
+                    JPAExpressions
+                            .select(memberSub.age.avg())
+                            .from(memberSub)
+                            .where(memberSub.team.eq(member.team))))
+            .orderBy(member.id.asc())
+            .fetch();
+
+    assertThat(usernames(memberWindowQueryRepository.findOldestPerTeam()))
+            .doesNotContain("member7")
+            .containsExactlyElementsOf(oldestBySubQuery.stream().map(Member::getUsername).collect(toList()));
+    assertThat(usernames(memberWindowQueryRepository.findAtLeastTeamAverageAge()))
+            .doesNotContain("member7")
+            .containsExactlyElementsOf(atLeastAverageBySubQuery.stream().map(Member::getUsername).collect(toList()));
+  }
+
+  @Test
+  public void atLeastAverage() {
+    // 평균 24.1...
+    assertThat(usernames(memberWindowQueryRepository.findAtLeastAverageAge()))
+            .containsExactly("member3", "member4", "member5");
+  }
+
+  @Test
+  public void atLeastTeamAverage() {
+    assertThat(usernames(memberWindowQueryRepository.findAtLeastTeamAverageAge()))
+            .containsExactly("member2", "member4", "member5", "member6");
+  }
+
+  @Test
+  public void topPerTeam() {
+    assertThat(usernames(memberWindowQueryRepository.findTopPerTeam(1)))
+            .containsExactly("member2", "member4", "member6");
+  }
+
+  @Test
+  public void membersOfTeamsWithMemberOlderThan() {
+    assertThat(usernames(memberWindowQueryRepository.findMembersOfTeamsWithMemberOlderThan(15)))
+            .containsExactly("member1", "member2", "member3", "member4", "member5");
+  }
+
+  private List<String> usernames(List<MemberTeamDto> result) {
+    return result.stream().map(MemberTeamDto::getUsername).collect(toList());
+  }
+}
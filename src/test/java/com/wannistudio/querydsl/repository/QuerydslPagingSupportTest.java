@@ -0,0 +1,150 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberTeamDto;
+import com.wannistudio.querydsl.dto.TeamSummaryDto;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QuerydslPagingSupportTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  QuerydslPagingSupport pagingSupport;
+  @Autowired
+  MemberPagingRepository memberPagingRepository;
+  @Autowired
+  TeamPagingRepository teamPagingRepository;
+
+  int countQueries;
+
+  @BeforeEach
+  public void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+    em.persist(new Member("member5", 50));
+    pagingSupport.evictCount(MemberPagingRepository.MEMBER_COUNT_KEY);
+    pagingSupport.evictCount(TeamPagingRepository.TEAM_COUNT_KEY);
+  }
+
+  @Test
+  public void countSkippedWhenFirstPageIsShort() {
+    Page<Member> page = pagingSupport.page(contentQuery(), countingQuery(), PageRequest.of(0, 10));
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(countQueries).isZero();
+  }
+
+  @Test
+  public void countSkippedOnLastPage() {
+    Page<Member> page = pagingSupport.page(contentQuery(), countingQuery(), PageRequest.of(1, 3));
+
+    assertThat(page.getContent()).extracting("username").containsExactly("member4", "member5");
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(countQueries).isZero();
+  }
+
+  @Test
+  public void countExecutedOnFullPage() {
+    Page<Member> page = pagingSupport.page(contentQuery(), countingQuery(), PageRequest.of(0, 3));
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(countQueries).isEqualTo(1);
+  }
+
+  @Test
+  public void slice() {
+    Slice<MemberTeamDto> first = memberPagingRepository.searchSlice(PageRequest.of(0, 3));
+    Slice<MemberTeamDto> second = memberPagingRepository.searchSlice(PageRequest.of(1, 3));
+
+    assertThat(first.getContent()).hasSize(3);
+    assertThat(first.hasNext()).isTrue();
+    assertThat(second.getContent()).extracting("username").containsExactly("member4", "member5");
+    assertThat(second.hasNext()).isFalse();
+  }
+
+  @Test
+  public void approximateCountIsReused() {
+    Page<Member> first = pagingSupport.pageWithCachedCount("test", contentQuery(), countingQuery(), PageRequest.of(0, 2));
+    em.persist(new Member("member6", 60));
+    Page<Member> second = pagingSupport.pageWithCachedCount("test", contentQuery(), countingQuery(), PageRequest.of(1, 2));
+
+    assertThat(first.getTotalElements()).isEqualTo(5);
+    assertThat(second.getTotalElements()).isEqualTo(5);
+    assertThat(countQueries).isEqualTo(1);
+    pagingSupport.evictCount("test");
+  }
+
+  @Test
+  public void membersPage() {
+    Page<MemberTeamDto> page = memberPagingRepository.searchPage(PageRequest.of(0, 2));
+
+    assertThat(page.getContent()).extracting("teamName").containsExactly("teamA", "teamA");
+    assertThat(page.getTotalElements()).isEqualTo(5);
+  }
+
+  @Test
+  public void teamsPage() {
+    em.persist(new Team("teamC"));
+
+    Page<TeamSummaryDto> first = teamPagingRepository.searchPage(PageRequest.of(0, 2));
+    Page<TeamSummaryDto> last = teamPagingRepository.searchPage(PageRequest.of(1, 2));
+
+    assertThat(first.getContent()).extracting("name").containsExactly("teamA", "teamB");
+    assertThat(first.getContent()).extracting("memberCount").containsExactly(2L, 2L);
+    assertThat(first.getTotalElements()).isEqualTo(3);
+    assertThat(last.getContent()).extracting("memberCount").containsExactly(0L);
+    assertThat(last.getTotalElements()).isEqualTo(3);
+  }
+
+  @Test
+  public void teamsSlice() {
+    Slice<TeamSummaryDto> slice = teamPagingRepository.searchSlice(PageRequest.of(0, 1));
+
+    assertThat(slice.getContent()).extracting("name").containsExactly("teamA");
+    assertThat(slice.hasNext()).isTrue();
+  }
+
+  private JPAQuery<Member> contentQuery() {
+    return queryFactory
+            .selectFrom(member)
+            .orderBy(member.id.asc());
+  }
+
+  private JPAQuery<Member> countingQuery() {
+    JPAQuery<Member> query = new JPAQuery<Member>(em) {
+      @Override
+      public long fetchCount() {
+        countQueries++;
+        return super.fetchCount();
+      }
+    };
+    return query.select(member).from(member);
+  }
+}
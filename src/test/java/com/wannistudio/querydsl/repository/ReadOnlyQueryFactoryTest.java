@@ -0,0 +1,135 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 회원 10만 건을 일반 조회와 read-only 조회로 각각 읽어 스냅샷 크기와 flush 시간을 비교한다.
+ * 시간은 환경에 따라 달라지므로 로그로만 남기고, 스냅샷(loadedState)이 없다는 것과 flush 가 dirty checking 을 하지 않는다는 것을 검증한다.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:read-only-query;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate.SQL=info"})
+@Transactional
+class ReadOnlyQueryFactoryTest {
+
+  static final int ROWS = 100_000;
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  ReadOnlyQueryFactory readOnlyQueryFactory;
+
+  @BeforeEach
+  public void before() {
+    em.createNativeQuery("insert into member (member_id, username, age)" +
+            " select x, concat('member', x), mod(x, 100) from system_range(1, " + ROWS + ")")
+            .executeUpdate();
+    // 2차 캐시 적재 비용이 비교에 섞이지 않도록 한다.
+    em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+  }
+
+  @Test
+  public void readOnlyQuerySkipsSnapshotAndDirtyChecking() {
+    List<Member> managed = queryFactory.selectFrom(member).fetch();
+    long managedSnapshot = snapshotSlots();
+    long managedFlush = timeFlush();
+    em.clear();
+
+    List<Member> readOnly = readOnlyQueryFactory.selectFrom(member).fetch();
+    long readOnlySnapshot = snapshotSlots();
+    long readOnlyFlush = timeFlush();
+
+    log.info("managed: snapshot slots={}, flush={}ms / read-only: snapshot slots={}, flush={}ms",
+            managedSnapshot, managedFlush, readOnlySnapshot, readOnlyFlush);
+
+    assertThat(managed).hasSize(ROWS);
+    assertThat(readOnly).hasSize(ROWS);
+    // username, age, team, ageBucket, displayKey
+    assertThat(managedSnapshot).isEqualTo(ROWS * 5L);
+    assertThat(readOnlySnapshot).isZero();
+    assertThat(em.unwrap(Session.class).isReadOnly(readOnly.get(0))).isTrue();
+  }
+
+  @Test
+  public void changesToReadOnlyEntitiesAreNotFlushed() {
+    Member first = readOnlyQueryFactory.selectFrom(member)
+            .where(member.id.eq(1L))
+            .fetchOne();
+    first.setAge(1000);
+    em.flush();
+    em.clear();
+
+    Integer age = queryFactory.select(member.age).from(member).where(member.id.eq(1L)).fetchOne();
+    assertThat(age).isEqualTo(1);
+  }
+
+  /**
+   * selectFrom 은 자동 flush 를 끄므로 flush 전 변경이 보이지 않는다. 쓰기 직후 재조회에 쓰면 안 되는 이유.
+   */
+  @Test
+  public void selectFromMissesUnflushedChanges() {
+    em.persist(new Member("pending", 10));
+
+    List<Member> found = readOnlyQueryFactory.selectFrom(member)
+            .where(member.username.eq("pending"))
+            .fetch();
+
+    assertThat(found).isEmpty();
+  }
+
+  @Test
+  public void selectKeepsAutoFlush() {
+    // before() 가 넣은 행의 id 와 시퀀스 값이 겹치지 않도록 비운다.
+    em.createNativeQuery("delete from member").executeUpdate();
+    em.persist(new Member("pending", 10));
+
+    List<String> found = readOnlyQueryFactory.select(member.username)
+            .from(member)
+            .where(member.username.eq("pending"))
+            .fetch();
+
+    assertThat(found).containsExactly("pending");
+  }
+
+  /**
+   * dirty checking 을 위해 엔티티마다 복사해 둔 속성 값(loadedState)의 총 개수.
+   */
+  private long snapshotSlots() {
+    long slots = 0;
+    for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries()) {
+      Object[] loadedState = entry.getValue().getLoadedState();
+      if (loadedState != null) {
+        slots += loadedState.length;
+      }
+    }
+    return slots;
+  }
+
+  private long timeFlush() {
+    long start = System.nanoTime();
+    em.flush();
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
@@ -0,0 +1,74 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import com.wannistudio.querydsl.monitor.QueryScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamMembersFetchTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TeamRepository teamRepository;
+  @Autowired
+  QueryCounter queryCounter;
+
+  @BeforeEach
+  public void before() {
+    for (int t = 0; t < 10; t++) {
+      Team newTeam = new Team("team" + t);
+      em.persist(newTeam);
+      for (int m = 0; m < 3; m++) {
+        em.persist(new Member("member" + t + "_" + m, m * 10, newTeam));
+      }
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  public void findPageWithMembersUsesTwoStatements() {
+    try (QueryScope scope = queryCounter.open("dashboard")) {
+      List<Team> teams = teamRepository.findPageWithMembers(PageRequest.of(1, 4));
+
+      assertThat(teams).extracting("name").containsExactly("team4", "team5", "team6", "team7");
+      for (Team t : teams) {
+        assertThat(t.getMembers()).hasSize(3);
+      }
+      assertThat(scope.getStatements()).isEqualTo(2);
+      assertThat(scope.getLazyLoads()).isEmpty();
+    }
+  }
+
+  @Test
+  public void lazyMembersAreBatchFetched() {
+    try (QueryScope scope = queryCounter.open("batch fetch")) {
+      List<Team> teams = queryFactory.selectFrom(team).fetch();
+      for (Team t : teams) {
+        t.getMembers().size();
+      }
+
+      // 팀 조회 1번 + default_batch_fetch_size 로 묶인 members 조회 1번
+      assertThat(scope.getStatements()).isEqualTo(2);
+      assertThat(scope.getLazyLoads()).containsEntry(Team.class.getName() + ".members", 1);
+    }
+  }
+}
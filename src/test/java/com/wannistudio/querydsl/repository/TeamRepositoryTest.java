@@ -0,0 +1,141 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.config.SecondLevelCacheConfig;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 쿼리 캐시는 커밋된 데이터에만 적용되므로 이 테스트는 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ * 문장 수는 하이버네이트 통계로 세므로 통계를 켜지만, 리전 적중 메트릭은 통계와 관계없이 JCache 에서 나온다.
+ */
+@SpringBootTest(properties = "querydsl.hibernate.statistics=true")
+class TeamRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  TeamRepository teamRepository;
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  Statistics statistics;
+  Long teamAId;
+
+  @BeforeEach
+  public void before() {
+    teamAId = transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      em.persist(teamA);
+      em.persist(new Team("teamB"));
+      em.persist(new Member("member1", 10, teamA));
+      em.persist(new Member("member2", 20, teamA));
+      return teamA.getId();
+    });
+    emf.getCache().evictAll();
+    statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void findByIdHitsSecondLevelCache() {
+    transactionTemplate.execute(status -> teamRepository.findById(teamAId));
+    transactionTemplate.execute(status -> teamRepository.findById(teamAId));
+
+    assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+    assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void regionHitsAndMissesAreMeteredWithoutHibernateStatistics() {
+    statistics.setStatisticsEnabled(false);
+    double hits = regionGets("hit");
+    double misses = regionGets("miss");
+    try {
+      transactionTemplate.execute(status -> teamRepository.findById(teamAId));
+      transactionTemplate.execute(status -> teamRepository.findById(teamAId));
+    } finally {
+      statistics.setStatisticsEnabled(true);
+    }
+
+    // 캐시에 넣을 때(putFromLoad)도 기존 값을 읽으므로 첫 조회의 실패는 한 번 넘게 셀 수 있다.
+    assertThat(regionGets("miss") - misses).isPositive();
+    assertThat(regionGets("hit") - hits).isEqualTo(1);
+  }
+
+  @Test
+  public void findByNameHitsQueryCache() {
+    Team first = transactionTemplate.execute(status -> teamRepository.findByName("teamA"));
+    Team second = transactionTemplate.execute(status -> teamRepository.findByName("teamA"));
+
+    assertThat(first.getId()).isEqualTo(second.getId());
+    assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+    assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void teamMembersCollectionIsCached() {
+    transactionTemplate.execute(status -> teamRepository.findById(teamAId).getMembers().size());
+    long statements = statistics.getPrepareStatementCount();
+
+    Integer size = transactionTemplate.execute(status -> teamRepository.findById(teamAId).getMembers().size());
+
+    assertThat(size).isEqualTo(2);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+  }
+
+  @Test
+  public void queryCacheInvalidatedOnWrite() {
+    transactionTemplate.execute(status -> teamRepository.findAll());
+    transactionTemplate.execute(status -> {
+      em.persist(new Team("teamC"));
+      return null;
+    });
+
+    List<Team> teams = transactionTemplate.execute(status -> teamRepository.findAll());
+    assertThat(teams).extracting("name").containsExactly("teamA", "teamB", "teamC");
+  }
+
+  private double regionGets(String result) {
+    return meterRegistry.get("cache.gets")
+            .tag("cache", SecondLevelCacheConfig.TEAM_REGION)
+            .tag("result", result)
+            .functionCounter()
+            .count();
+  }
+}
@@ -0,0 +1,223 @@
+package com.wannistudio.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.entity.TeamStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 통계는 커밋 직전에 반영되므로 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  TeamStatsRepository teamStatsRepository;
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  Long teamAId;
+  Long teamBId;
+  Long member1Id;
+  Long member3Id;
+
+  @BeforeEach
+  public void before() {
+    transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      Member member1 = new Member("member1", 10, teamA);
+      em.persist(member1);
+      em.persist(new Member("member2", 20, teamA));
+      Member member3 = new Member("member3", 30, teamB);
+      em.persist(member3);
+      teamAId = teamA.getId();
+      teamBId = teamB.getId();
+      member1Id = member1.getId();
+      member3Id = member3.getId();
+      return null;
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      em.createNativeQuery("delete from team_stats").executeUpdate();
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void persistUpdatesStats() {
+    assertStats(teamAId, 2, 30, 10, 20);
+    assertStats(teamBId, 1, 30, 30, 30);
+  }
+
+  @Test
+  public void changeTeamMovesMember() {
+    transactionTemplate.execute(status -> {
+      Member member1 = em.find(Member.class, member1Id);
+      member1.changeTeam(em.find(Team.class, teamBId));
+      return null;
+    });
+
+    assertStats(teamAId, 1, 20, 20, 20);
+    assertStats(teamBId, 2, 40, 10, 30);
+  }
+
+  @Test
+  public void ageChangeUpdatesSumAndRange() {
+    transactionTemplate.execute(status -> {
+      em.find(Member.class, member1Id).setAge(50);
+      return null;
+    });
+
+    assertStats(teamAId, 2, 70, 20, 50);
+  }
+
+  @Test
+  public void deleteRemovesMember() {
+    transactionTemplate.execute(status -> {
+      em.remove(em.find(Member.class, member1Id));
+      return null;
+    });
+
+    assertStats(teamAId, 1, 20, 20, 20);
+  }
+
+  @Test
+  public void deleteTeamRemovesStatsRow() {
+    transactionTemplate.execute(status -> {
+      em.remove(em.find(Member.class, member3Id));
+      em.remove(em.find(Team.class, teamBId));
+      return null;
+    });
+
+    assertThat(statsRows(teamBId)).isZero();
+    assertStats(teamAId, 2, 30, 10, 20);
+  }
+
+  @Test
+  public void rollbackLeavesStatsUntouched() {
+    transactionTemplate.execute(status -> {
+      em.persist(new Member("member4", 40, em.find(Team.class, teamAId)));
+      em.flush();
+      status.setRollbackOnly();
+      return null;
+    });
+
+    assertStats(teamAId, 2, 30, 10, 20);
+  }
+
+  @Test
+  public void bulkUpdateRebuildsStats() {
+    transactionTemplate.execute(status ->
+            memberBulkRepository.addAgeByTeam(teamAId, 5, MemberBulkRepository.ContextSync.CLEAR));
+    assertStats(teamAId, 2, 40, 15, 25);
+
+    transactionTemplate.execute(status ->
+            memberBulkRepository.deleteByAgeBetween(20, 30, MemberBulkRepository.ContextSync.CLEAR));
+    assertStats(teamAId, 1, 15, 15, 15);
+    assertStats(teamBId, 0, 0, null, null);
+  }
+
+  @Test
+  public void newTeamHasSeededStats() {
+    Long teamCId = transactionTemplate.execute(status -> {
+      Team teamC = new Team("teamC");
+      em.persist(teamC);
+      return teamC.getId();
+    });
+
+    assertStats(teamCId, 0, 0, null, null);
+  }
+
+  @Test
+  public void concurrentFirstMembersOfNewTeamAreBothCounted() throws Exception {
+    Long teamCId = transactionTemplate.execute(status -> {
+      Team teamC = new Team("teamC");
+      em.persist(teamC);
+      return teamC.getId();
+    });
+
+    // 두 트랜잭션 모두 회원을 flush 한 뒤에 커밋하므로 어느 쪽도 상대의 회원을 보지 못한다.
+    CyclicBarrier flushed = new CyclicBarrier(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> first = executor.submit(() -> addMember(teamCId, "member4", 40, flushed));
+      Future<?> second = executor.submit(() -> addMember(teamCId, "member5", 50, flushed));
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertStats(teamCId, 2, 90, 40, 50);
+  }
+
+  @Test
+  public void teamWithoutMembersHasEmptyStats() {
+    TeamStats stats = teamStatsRepository.findByTeamId(-1L);
+
+    assertThat(stats.getMemberCount()).isZero();
+    assertThat(stats.getAgeAvg()).isZero();
+  }
+
+  private void addMember(Long teamId, String username, int age, CyclicBarrier flushed) {
+    transactionTemplate.execute(status -> {
+      em.persist(new Member(username, age, em.getReference(Team.class, teamId)));
+      em.flush();
+      try {
+        flushed.await(5, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      return null;
+    });
+  }
+
+  private long statsRows(Long teamId) {
+    return ((Number) em.createNativeQuery("select count(*) from team_stats where team_id = ?")
+            .setParameter(1, teamId)
+            .getSingleResult()).longValue();
+  }
+
+  private void assertStats(Long teamId, long count, long ageSum, Integer ageMin, Integer ageMax) {
+    TeamStats stats = teamStatsRepository.findByTeamId(teamId);
+    assertThat(stats.getMemberCount()).isEqualTo(count);
+    assertThat(stats.getAgeSum()).isEqualTo(ageSum);
+    assertThat(stats.getAgeMin()).isEqualTo(ageMin);
+    assertThat(stats.getAgeMax()).isEqualTo(ageMax);
+  }
+}
@@ -0,0 +1,107 @@
+package com.wannistudio.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.dto.MemberCreateDto;
+import com.wannistudio.querydsl.entity.Team;
+import com.wannistudio.querydsl.monitor.QueryCounter;
+import com.wannistudio.querydsl.monitor.QueryScope;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberIngestServiceTest {
+
+  @Autowired
+  EntityManager em;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  QueryCounter queryCounter;
+  @Autowired
+  MemberIngestService memberIngestService;
+  @Value("${querydsl.batch.size}")
+  int batchSize;
+
+  @Test
+  public void ingest() {
+    em.persist(new Team("teamA"));
+
+    List<MemberCreateDto> rows = new ArrayList<>();
+    for (int i = 0; i < 1234; i++) {
+      rows.add(new MemberCreateDto("member" + i, i % 50, i % 2 == 0 ? "teamA" : "teamB"));
+    }
+    rows.add(new MemberCreateDto("noTeam", 10, null));
+
+    long count = memberIngestService.ingest(rows);
+
+    assertThat(count).isEqualTo(1235);
+    assertThat(queryFactory.selectFrom(team).fetch()).extracting("name").containsExactlyInAnyOrder("teamA", "teamB");
+    assertThat(queryFactory.selectFrom(member).join(member.team, team).where(team.name.eq("teamA")).fetchCount())
+            .isEqualTo(617);
+    assertThat(queryFactory.selectFrom(member).where(member.team.isNull()).fetchCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void insertsAreBatched() {
+    List<MemberCreateDto> rows = new ArrayList<>();
+    for (int i = 0; i < batchSize * 3; i++) {
+      rows.add(new MemberCreateDto("member" + i, i % 50, "team" + (i % 3)));
+    }
+
+    List<String> sql;
+    try (QueryScope scope = queryCounter.openRecording("ingest")) {
+      memberIngestService.ingest(rows);
+      sql = scope.getSql();
+    }
+
+    // 묶음마다 회원 INSERT 를 한 번 준비해서 batch 로 보낸다. 팀은 첫 묶음에서만 조회 / 생성한다.
+    assertThat(sql).filteredOn(s -> s.startsWith("insert into member")).hasSize(3);
+    assertThat(sql).filteredOn(s -> s.startsWith("insert into team ")).hasSize(1);
+    assertThat(sql).filteredOn(s -> s.startsWith("select")).hasSize(1);
+  }
+
+  @Test
+  public void readsRowsOnceAndKeepsCallerEntitiesManaged() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    AtomicBoolean iterated = new AtomicBoolean();
+    Iterable<MemberCreateDto> oneShot = () -> {
+      if (!iterated.compareAndSet(false, true)) {
+        throw new IllegalStateException("already iterated");
+      }
+      Iterator<MemberCreateDto> source = new Iterator<MemberCreateDto>() {
+        int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return i < 1234;
+        }
+
+        @Override
+        public MemberCreateDto next() {
+          return new MemberCreateDto("member" + i, i++ % 50, "teamA");
+        }
+      };
+      return source;
+    };
+
+    assertThat(memberIngestService.ingest(oneShot)).isEqualTo(1234);
+    assertThat(em.contains(teamA)).isTrue();
+    assertThat(queryFactory.selectFrom(member).where(member.team.eq(teamA)).fetchCount()).isEqualTo(1234);
+  }
+}
@@ -0,0 +1,252 @@
+package com.wannistudio.querydsl.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.wannistudio.querydsl.entity.Member;
+import com.wannistudio.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.wannistudio.querydsl.entity.QMember.member;
+import static com.wannistudio.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 논블로킹 쓰기는 MockMvc 에서 동작하지 않으므로 실제 서버로 요청한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stream;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+        "querydsl.stream.page-size=25",
+        "querydsl.stream.max-streams=2"})
+class ResultStreamerTest {
+
+  @LocalServerPort
+  int port;
+  @Autowired
+  EntityManager em;
+  @Autowired
+  EntityManagerFactory emf;
+  @Autowired
+  JPAQueryFactory queryFactory;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  ObjectMapper objectMapper;
+
+  List<Long> teamAIds = new ArrayList<>();
+
+  @BeforeEach
+  public void before() {
+    transactionTemplate.execute(status -> {
+      Team teamA = new Team("teamA");
+      Team teamB = new Team("teamB");
+      em.persist(teamA);
+      em.persist(teamB);
+      for (int i = 0; i < 60; i++) {
+        Member member = new Member("member" + i, i, i % 2 == 0 ? teamA : teamB);
+        em.persist(member);
+        if (i % 2 == 0) {
+          teamAIds.add(member.getId());
+        }
+      }
+      return null;
+    });
+  }
+
+  @AfterEach
+  public void after() {
+    transactionTemplate.execute(status -> {
+      em.createNativeQuery("delete from team_stats").executeUpdate();
+      queryFactory.delete(member).execute();
+      queryFactory.delete(team).execute();
+      return null;
+    });
+    emf.getCache().evictAll();
+  }
+
+  @Test
+  public void ndjsonStreamsAllPagesInIdOrder() throws Exception {
+    HttpURLConnection connection = open("/members/stream?teamName=teamA", "application/x-ndjson", null);
+
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    assertThat(connection.getContentType()).startsWith("application/x-ndjson");
+    List<Long> ids = new ArrayList<>();
+    for (String line : lines(connection)) {
+      JsonNode row = objectMapper.readTree(line);
+      assertThat(row.get("teamName").asText()).isEqualTo("teamA");
+      ids.add(row.get("memberId").asLong());
+    }
+    // 30 건 = 25 + 5 페이지
+    assertThat(ids).isEqualTo(teamAIds);
+  }
+
+  @Test
+  public void sseResumesAfterLastEventId() throws Exception {
+    HttpURLConnection connection = open("/members/stream?teamName=teamA", "text/event-stream",
+            String.valueOf(teamAIds.get(9)));
+
+    assertThat(connection.getResponseCode()).isEqualTo(200);
+    List<Long> ids = new ArrayList<>();
+    List<String> events = new ArrayList<>();
+    for (String line : lines(connection)) {
+      if (line.startsWith("id: ")) {
+        ids.add(Long.valueOf(line.substring(4)));
+      } else if (line.startsWith("event: ")) {
+        events.add(line.substring(7));
+      }
+    }
+    assertThat(ids).isEqualTo(teamAIds.subList(10, teamAIds.size()));
+    assertThat(events).containsExactly("end");
+  }
+
+  @Test
+  public void slowClientsParkStreamsWithoutFinishing() throws Exception {
+    // 소켓 버퍼를 넘기도록 250자 username 을 8만 건(약 25MB) 넣는다.
+    transactionTemplate.execute(status -> em.createNativeQuery(
+            "insert into member (member_id, username, age) select 1000000 + x, repeat('x', 250), 1 from system_range(1, 80000)")
+            .executeUpdate());
+
+    HttpURLConnection first = open("/members/stream", "application/x-ndjson", null);
+    HttpURLConnection second = open("/members/stream", "application/x-ndjson", null);
+    InputStream firstBody = first.getInputStream();
+    InputStream secondBody = second.getInputStream();
+    assertThat(firstBody.read()).isEqualTo('{');
+    assertThat(secondBody.read()).isEqualTo('{');
+
+    // 첫 바이트를 받았으니 두 스트림 모두 자리를 잡았고, 클라이언트가 읽지 않는 한 끝나지 못하므로 세 번째는 거절된다.
+    HttpURLConnection rejected = open("/members/stream", "application/x-ndjson", null);
+    assertThat(rejected.getResponseCode()).isEqualTo(503);
+    assertThat(rejected.getContentType()).startsWith("application/x-ndjson");
+    assertThat(rejected.getHeaderField("Retry-After")).isEqualTo("1");
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(rejected.getErrorStream(), StandardCharsets.UTF_8))) {
+      assertThat(objectMapper.readTree(reader.readLine()).get("error").asText()).contains("스트림 수");
+    }
+
+    first.disconnect();
+    second.disconnect();
+    firstBody.close();
+    secondBody.close();
+
+    // 연결이 끊긴 것을 서버가 알아채면 자리가 난다.
+    long deadline = System.currentTimeMillis() + 10_000;
+    int status = 503;
+    while (status == 503 && System.currentTimeMillis() < deadline) {
+      HttpURLConnection retry = open("/members/stream?username=member0", "application/x-ndjson", null);
+      status = retry.getResponseCode();
+      if (status == 200) {
+        assertThat(lines(retry)).hasSize(1);
+      } else {
+        Thread.sleep(50);
+      }
+    }
+    assertThat(status).isEqualTo(200);
+  }
+
+  @Test
+  public void failedStartReleasesStreamOnce() throws Exception {
+    ResultStreamer streamer = new ResultStreamer(null, 1, Duration.ofMinutes(1));
+
+    // 리스너를 등록한 뒤 setWriteListener 가 실패하고, 이후 비동기 요청이 끝나 onComplete 가 불려도 자리는 한 번만 돌아온다.
+    MockHttpServletRequest failedRequest = asyncRequest();
+    assertThatThrownBy(() -> stream(streamer, failedRequest, new ParkedOutputStream(true)))
+            .isInstanceOf(IllegalStateException.class);
+    ((MockAsyncContext) failedRequest.getAsyncContext()).complete();
+
+    assertThat(stream(streamer, asyncRequest(), new ParkedOutputStream(false)).getStatus()).isEqualTo(200);
+    assertThat(stream(streamer, asyncRequest(), new ParkedOutputStream(false)).getStatus()).isEqualTo(503);
+  }
+
+  private MockHttpServletRequest asyncRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setAsyncSupported(true);
+    return request;
+  }
+
+  private MockHttpServletResponse stream(ResultStreamer streamer, MockHttpServletRequest request,
+                                         ServletOutputStream out) throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse() {
+      @Override
+      public ServletOutputStream getOutputStream() {
+        return out;
+      }
+    };
+    streamer.stream(request, response, MediaType.APPLICATION_NDJSON, Collections::<Long>emptyList, rows -> new byte[0]);
+    return response;
+  }
+
+  /**
+   * 쓰기 가능 알림을 보내지 않아 스트림이 열린 채로 남는다. rejectListener 면 setWriteListener 가 실패한다.
+   */
+  private static class ParkedOutputStream extends ServletOutputStream {
+
+    private final boolean rejectListener;
+
+    ParkedOutputStream(boolean rejectListener) {
+      this.rejectListener = rejectListener;
+    }
+
+    @Override
+    public boolean isReady() {
+      return false;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      if (rejectListener) {
+        throw new IllegalStateException("setWriteListener failed");
+      }
+    }
+
+    @Override
+    public void write(int b) {
+    }
+  }
+
+  private HttpURLConnection open(String path, String accept, String lastEventId) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+    connection.setRequestProperty("Accept", accept);
+    if (lastEventId != null) {
+      connection.setRequestProperty("Last-Event-ID", lastEventId);
+    }
+    return connection;
+  }
+
+  private List<String> lines(HttpURLConnection connection) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          lines.add(line);
+        }
+      }
+    }
+    return lines;
+  }
+}